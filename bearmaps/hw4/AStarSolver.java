@@ -20,6 +20,11 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
     private Map<Vertex, Vertex> edgeTo;
 
     public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout) {
+        this(input, start, end, new SearchBudget(timeout));
+    }
+
+    /* same as above, but gives up with TIMEOUT as soon as BUDGET is exhausted. */
+    public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, SearchBudget budget) {
 
         solution = new ArrayList<>();
         fringe = new ArraylistHeapMinPQ<>();
@@ -31,6 +36,7 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
         edgeTo.put(start, null);
         numDequeued = 0;
         fringe.add(start, input.estimatedDistanceToGoal(start, end));
+        outcome = SolverOutcome.UNSOLVABLE;
 
         while(fringe.size() != 0) {
             if (fringe.getSmallest().equals(end)) {
@@ -43,19 +49,19 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
                 }
                 solution.add(start);
                 Collections.reverse(solution);
-                return;
+                break;
             }
             Vertex cur = fringe.removeSmallest();
             numDequeued += 1;
             for (WeightedEdge<Vertex> edge : input.neighbors(cur)) {
                 relax(edge, input, end);
             }
-            timeSpent = sw.elapsedTime();
-            if (timeSpent >= timeout) {
+            if (budget.exhausted(numDequeued)) {
                 outcome = SolverOutcome.TIMEOUT;
+                break;
             }
         }
-        outcome = SolverOutcome.UNSOLVABLE;
+        timeSpent = sw.elapsedTime();
     }
 
     private void relax(WeightedEdge<Vertex> edge, AStarGraph<Vertex> input, Vertex end) {
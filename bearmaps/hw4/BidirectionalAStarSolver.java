@@ -0,0 +1,176 @@
+package bearmaps.hw4;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/* Bidirectional A* over the CompactGraph: one search grows forward from the start along
+* outgoing edges, the other backward from the goal along incoming edges, until they meet.
+*
+* Both searches use the average potential p(v) = (h(v, goal) - h(start, v)) / 2 (forward)
+* and -p(v) (backward), h being the great-circle distance. The two potentials sum to zero,
+* so both sides see the same reduced edge costs and the search can stop as soon as the two
+* smallest keys add up to at least the best start-goal path seen so far. */
+public class BidirectionalAStarSolver implements ShortestPathsSolver<Long> {
+
+    private SolverOutcome outcome;
+    private List<Long> solution;
+    private double solutionWeight;
+    private int numDequeued;
+    private double timeSpent;
+
+    private CompactGraph graph;
+    private SearchSpace forward;
+    private SearchSpace backward;
+    private int s;
+    private int t;
+    private double best;
+    private int meeting;
+
+    public BidirectionalAStarSolver(CompactGraph graph, long start, long end, double timeout) {
+        this(graph, start, end, new SearchBudget(timeout), new SearchSpace(graph.size()),
+                new SearchSpace(graph.size()));
+    }
+
+    /* same as above, searching in the given spaces and giving up with TIMEOUT once BUDGET is exhausted. */
+    public BidirectionalAStarSolver(CompactGraph graph, long start, long end, SearchBudget budget,
+                                    SearchSpace forward, SearchSpace backward) {
+        this.graph = graph;
+        this.forward = forward;
+        this.backward = backward;
+        solution = new ArrayList<>();
+        Stopwatch sw = new Stopwatch();
+        s = graph.index(start);
+        t = graph.index(end);
+        outcome = SolverOutcome.UNSOLVABLE;
+        if (s == -1 || t == -1) {
+            return;
+        }
+
+        forward.reset(graph.size());
+        backward.reset(graph.size());
+        forward.setDistTo(s, 0.0, -1);
+        forward.push(s, potential(s));
+        backward.setDistTo(t, 0.0, -1);
+        backward.push(t, -potential(t));
+        best = s == t ? 0.0 : Double.POSITIVE_INFINITY;
+        meeting = s == t ? s : -1;
+
+        while (true) {
+            skipStale(forward);
+            skipStale(backward);
+            if (forward.isHeapEmpty() || backward.isHeapEmpty()
+                    || forward.peekPriority() + backward.peekPriority() >= best) {
+                break;
+            }
+            /* expand the side whose frontier is closer, which keeps the two balls similar */
+            if (forward.peekPriority() <= backward.peekPriority()) {
+                expandForward();
+            } else {
+                expandBackward();
+            }
+            if (budget.exhausted(numDequeued)) {
+                outcome = SolverOutcome.TIMEOUT;
+                timeSpent = sw.elapsedTime();
+                return;
+            }
+        }
+
+        if (meeting != -1) {
+            outcome = SolverOutcome.SOLVED;
+            solutionWeight = best;
+            for (int v = meeting; v != -1; v = forward.edgeTo(v)) {
+                solution.add(graph.id(v));
+            }
+            Collections.reverse(solution);
+            for (int v = backward.edgeTo(meeting); v != -1; v = backward.edgeTo(v)) {
+                solution.add(graph.id(v));
+            }
+        }
+        timeSpent = sw.elapsedTime();
+    }
+
+    /* forward potential of V, the backward one is its negation. */
+    private double potential(int v) {
+        return (graph.distance(v, t) - graph.distance(s, v)) / 2;
+    }
+
+    /* drop heap entries of vertices that were already settled on that side. */
+    private static void skipStale(SearchSpace space) {
+        while (!space.isHeapEmpty() && space.isSettled(space.peek())) {
+            space.pop();
+        }
+    }
+
+    private void expandForward() {
+        int cur = forward.pop();
+        forward.settle(cur);
+        numDequeued += 1;
+        double curDist = forward.distTo(cur);
+        for (int e = graph.outStart(cur); e < graph.outEnd(cur); e += 1) {
+            int to = graph.target(e);
+            if (forward.isSettled(to)) {
+                continue;
+            }
+            double dist = curDist + graph.weight(e);
+            if (dist < forward.distTo(to)) {
+                forward.setDistTo(to, dist, cur);
+                forward.push(to, dist + potential(to));
+                if (backward.isReached(to) && dist + backward.distTo(to) < best) {
+                    best = dist + backward.distTo(to);
+                    meeting = to;
+                }
+            }
+        }
+    }
+
+    private void expandBackward() {
+        int cur = backward.pop();
+        backward.settle(cur);
+        numDequeued += 1;
+        double curDist = backward.distTo(cur);
+        for (int i = graph.inStart(cur); i < graph.inEnd(cur); i += 1) {
+            int from = graph.source(i);
+            if (backward.isSettled(from)) {
+                continue;
+            }
+            double dist = curDist + graph.weight(graph.inEdge(i));
+            if (dist < backward.distTo(from)) {
+                backward.setDistTo(from, dist, cur);
+                backward.push(from, dist - potential(from));
+                if (forward.isReached(from) && dist + forward.distTo(from) < best) {
+                    best = dist + forward.distTo(from);
+                    meeting = from;
+                }
+            }
+        }
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<Long> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    @Override
+    public int numStatesExplored() {
+        return numDequeued;
+    }
+
+    @Override
+    public double explorationTime() {
+        return timeSpent;
+    }
+}
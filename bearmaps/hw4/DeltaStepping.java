@@ -0,0 +1,362 @@
+package bearmaps.hw4;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Delta-stepping: one-to-all shortest paths in a CompactGraph, with the work of every step
+ * shared by the threads of the common fork-join pool.
+ *
+ * Tentative distances are grouped into buckets of width delta. Each round takes all the
+ * vertices of the lowest non-empty bucket and relaxes their edges at once, in parallel
+ * chunks. A vertex whose distance improves goes into the bucket of its new distance, which
+ * may be the current bucket again. The order within a bucket does not matter, so a vertex
+ * may be relaxed more than once. Buckets are still emptied in order, so a distance is final
+ * once its bucket is empty. A small delta wastes few relaxations but leaves little to do in
+ * parallel per round; Dijkstra's algorithm is the limit of a tiny delta.
+ *
+ * Distances are kept as the bits of their doubles, plus one, in an AtomicLongArray, so that
+ * the zeros of a new array read as unreached and it needs no filling. For non-negative
+ * doubles the bits order like the values, so a relaxation is a compare-and-set loop that only
+ * ever lowers an entry. Every chunk of a round puts vertices into its own stripe of buckets,
+ * so inserts take no locks; the stripes are merged when the next round starts. A stripe also
+ * lists the vertices its chunks reached first, so that the reached part of the graph can be
+ * read out without scanning every vertex. Buckets are
+ * circular: an edge reaches at most maxWeight / delta + 1 buckets ahead of the current one,
+ * so only that many are ever in use.
+ */
+public class DeltaStepping {
+
+    /** Default bucket width, in mean edge weights. */
+    private static final double DELTA_FACTOR = 4;
+    /** Rounds with fewer vertices are relaxed on the calling thread. */
+    private static final int PARALLEL_THRESHOLD = 512;
+    /** Smallest number of vertices relaxed by one parallel chunk. */
+    private static final int MIN_CHUNK = 128;
+    private static final int STRIPES = 4 * ForkJoinPool.getCommonPoolParallelism();
+    private static final long UNREACHED = 0;
+
+    private DeltaStepping() {
+    }
+
+    /** Returns true if the common pool has more than one thread, so that a single search
+     * can be sped up by running it here instead of with OneToAllDijkstra. */
+    public static boolean isParallel() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /** Returns the default bucket width for GRAPH. */
+    public static double defaultDelta(CompactGraph graph) {
+        double delta = DELTA_FACTOR * graph.meanWeight();
+        return delta > 0 ? delta : 1;
+    }
+
+    /**
+     * Searches from SOURCE until every vertex within distance BOUND is final.
+     * @param graph The graph to search.
+     * @param source The vertex to start from.
+     * @param reverse Whether to follow incoming edges, giving distances to the source.
+     * @param bound The largest distance of interest; pass infinity to search the whole graph.
+     * @param delta The bucket width.
+     * @return The vertices within BOUND and their distances, nearest first.
+     */
+    public static Reach reach(CompactGraph graph, int source, boolean reverse, double bound, double delta) {
+        Search search = new Search(graph, reverse, bound, delta, STRIPES, PARALLEL_THRESHOLD,
+                MIN_CHUNK);
+        search.run(source, null);
+        return search.reach();
+    }
+
+    /**
+     * Searches from SOURCE until the distances of all TARGETS are final.
+     * @param graph The graph to search.
+     * @param source The vertex to start from.
+     * @param reverse Whether to follow incoming edges, giving distances to the source.
+     * @param targets The vertices whose distances are needed.
+     * @param delta The bucket width.
+     * @return The distance of every vertex. Only those of TARGETS are sure to be final,
+     * the others may be too large.
+     */
+    public static double[] run(CompactGraph graph, int source, boolean reverse, int[] targets, double delta) {
+        Search search = new Search(graph, reverse, Double.POSITIVE_INFINITY, delta, STRIPES,
+                PARALLEL_THRESHOLD, MIN_CHUNK);
+        search.run(source, targets.clone());
+        double[] distTo = new double[graph.size()];
+        for (int v = 0; v < distTo.length; v += 1) {
+            distTo[v] = search.distTo(v);
+        }
+        return distTo;
+    }
+
+    /** The vertices reached by a bounded search, nearest first, and their distances. */
+    public static class Reach {
+        private final int[] vertices;
+        private final double[] distances;
+
+        private Reach(int[] vertices, double[] distances) {
+            this.vertices = vertices;
+            this.distances = distances;
+        }
+
+        /** Returns the number of vertices reached. */
+        public int size() {
+            return vertices.length;
+        }
+
+        /** Returns the I-th nearest vertex. */
+        public int vertex(int i) {
+            return vertices[i];
+        }
+
+        /** Returns the distance of the I-th nearest vertex. */
+        public double distance(int i) {
+            return distances[i];
+        }
+    }
+
+    /* one search; the number of stripes and the sizes of rounds and chunks relaxed in
+    * parallel are parameters so that tests can split small rounds on a single core. */
+    static class Search {
+        private final CompactGraph graph;
+        private final boolean reverse;
+        private final double bound;
+        private final double delta;
+        private final AtomicLongArray dist;
+        private final Stripe[] stripes;
+        private final int mask;
+        private final int threshold;
+        private final int minChunk;
+        private int[] frontier = new int[64];
+
+        Search(CompactGraph graph, boolean reverse, double bound, double delta, int stripeCount,
+               int threshold, int minChunk) {
+            if (!(delta > 0)) {
+                throw new IllegalArgumentException("Delta must be positive.");
+            }
+            this.graph = graph;
+            this.reverse = reverse;
+            this.bound = bound;
+            this.delta = delta;
+            this.threshold = threshold;
+            this.minChunk = minChunk;
+            dist = new AtomicLongArray(graph.size());
+            int span = (int) Math.min(Math.ceil(graph.maxWeight() / delta) + 2, 1 << 30);
+            int buckets = Integer.highestOneBit(span - 1) << 1;
+            mask = buckets - 1;
+            stripes = new Stripe[Math.max(stripeCount, 1)];
+            for (int i = 0; i < stripes.length; i += 1) {
+                stripes[i] = new Stripe(buckets);
+            }
+        }
+
+        /* runs the rounds; stops early once all TARGETS are final, unless TARGETS is null. */
+        void run(int source, int[] targets) {
+            dist.set(source, encode(0.0));
+            stripes[0].add(0, source);
+            stripes[0].addReached(source);
+            int remaining = targets == null ? -1 : targets.length;
+            long current = 0;
+            while (remaining != 0) {
+                long next = nextBucket(current);
+                if (next < 0 || next * delta > bound) {
+                    break;
+                }
+                if (next != current && targets != null) {
+                    remaining = dropFinal(targets, remaining, next);
+                    if (remaining == 0) {
+                        break;
+                    }
+                }
+                current = next;
+                int size = collect(current);
+                long bucket = current;
+                int[] vertices = frontier;
+                if (size < threshold || stripes.length == 1) {
+                    relax(vertices, 0, size, bucket, stripes[0]);
+                } else {
+                    int chunks = Math.min(stripes.length, (size + minChunk - 1) / minChunk);
+                    IntStream.range(0, chunks).parallel().forEach(c ->
+                            relax(vertices, (int) ((long) size * c / chunks),
+                                    (int) ((long) size * (c + 1) / chunks), bucket, stripes[c]));
+                }
+            }
+        }
+
+        /* returns the tentative distance of V, final if V is a target or within the bound. */
+        double distTo(int v) {
+            return decode(dist.get(v));
+        }
+
+        /* returns the vertices within the bound, sorted by distance. Ties in the packed keys
+        * below may leave two nearly equal distances out of order, which a pass of insertion
+        * sort puts right. */
+        Reach reach() {
+            int count = 0;
+            for (Stripe stripe : stripes) {
+                count += stripe.reachedCount;
+            }
+            /* the high bits of a key are those of the distance, the low ones the vertex */
+            int shift = 64 - Long.numberOfLeadingZeros(Math.max(graph.size() - 1, 1));
+            long[] keys = new long[count];
+            int n = 0;
+            for (Stripe stripe : stripes) {
+                for (int i = 0; i < stripe.reachedCount; i += 1) {
+                    int v = stripe.reached[i];
+                    double d = distTo(v);
+                    if (d <= bound) { // tentative distances beyond the bound are not final
+                        keys[n] = (Double.doubleToLongBits(d) >>> shift << shift) | v;
+                        n += 1;
+                    }
+                }
+            }
+            Arrays.sort(keys, 0, n);
+            long mask = (1L << shift) - 1;
+            int[] vertices = new int[n];
+            double[] distances = new double[n];
+            for (int i = 0; i < n; i += 1) {
+                int v = (int) (keys[i] & mask);
+                double d = distTo(v);
+                int j = i;
+                while (j > 0 && distances[j - 1] > d) {
+                    vertices[j] = vertices[j - 1];
+                    distances[j] = distances[j - 1];
+                    j -= 1;
+                }
+                vertices[j] = v;
+                distances[j] = d;
+            }
+            return new Reach(vertices, distances);
+        }
+
+        /* returns the lowest non-empty bucket from FROM on, or -1 if all are empty. */
+        private long nextBucket(long from) {
+            for (long b = from; b <= from + mask; b += 1) {
+                int slot = (int) (b & mask);
+                for (Stripe stripe : stripes) {
+                    if (stripe.sizes[slot] > 0) {
+                        return b;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /* moves TARGETS[0 .. REMAINING - 1] whose distances are final before BUCKET to the
+        * back and returns how many are left in front. */
+        private int dropFinal(int[] targets, int remaining, long bucket) {
+            int left = 0;
+            for (int i = 0; i < remaining; i += 1) {
+                int t = targets[i];
+                if (!(distTo(t) < bucket * delta)) {
+                    targets[left] = t;
+                    left += 1;
+                }
+            }
+            return left;
+        }
+
+        /* empties BUCKET of every stripe into the frontier and returns its size. */
+        private int collect(long bucket) {
+            int slot = (int) (bucket & mask);
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                int n = stripe.sizes[slot];
+                if (n == 0) {
+                    continue;
+                }
+                if (size + n > frontier.length) {
+                    frontier = Arrays.copyOf(frontier, Math.max(size + n, frontier.length * 2));
+                }
+                System.arraycopy(stripe.items[slot], 0, frontier, size, n);
+                stripe.sizes[slot] = 0;
+                size += n;
+            }
+            return size;
+        }
+
+        /* relaxes the edges of VERTICES[LO .. HI - 1], taken from BUCKET, into STRIPE. */
+        private void relax(int[] vertices, int lo, int hi, long bucket, Stripe stripe) {
+            for (int i = lo; i < hi; i += 1) {
+                int v = vertices[i];
+                double d = distTo(v);
+                if (bucketOf(d) != bucket) {
+                    continue; // moved to a lower bucket since it was added here, and done there
+                }
+                if (reverse) {
+                    for (int j = graph.inStart(v); j < graph.inEnd(v); j += 1) {
+                        relax(graph.source(j), d + graph.weight(graph.inEdge(j)), stripe);
+                    }
+                } else {
+                    for (int e = graph.outStart(v); e < graph.outEnd(v); e += 1) {
+                        relax(graph.target(e), d + graph.weight(e), stripe);
+                    }
+                }
+            }
+        }
+
+        private void relax(int w, double d, Stripe stripe) {
+            long bits = encode(d);
+            long old = dist.get(w);
+            while (old == UNREACHED || bits < old) {
+                if (dist.compareAndSet(w, old, bits)) {
+                    if (old == UNREACHED) {
+                        stripe.addReached(w);
+                    }
+                    if (d <= bound) {
+                        stripe.add((int) (bucketOf(d) & mask), w);
+                    }
+                    return;
+                }
+                old = dist.get(w);
+            }
+        }
+
+        private long bucketOf(double d) {
+            return (long) (d / delta);
+        }
+
+        private static long encode(double d) {
+            return Double.doubleToLongBits(d) + 1;
+        }
+
+        private static double decode(long bits) {
+            return bits == UNREACHED ? Double.POSITIVE_INFINITY : Double.longBitsToDouble(bits - 1);
+        }
+    }
+
+    /* one chunk's buckets, each a growable int array, and the vertices it reached first. */
+    private static class Stripe {
+        private final int[][] items;
+        private final int[] sizes;
+        private int[] reached = new int[16];
+        private int reachedCount;
+
+        Stripe(int buckets) {
+            items = new int[buckets][];
+            sizes = new int[buckets];
+        }
+
+        void add(int slot, int v) {
+            int n = sizes[slot];
+            if (items[slot] == null) {
+                items[slot] = new int[16];
+            } else if (n == items[slot].length) {
+                items[slot] = Arrays.copyOf(items[slot], n * 2);
+            }
+            items[slot][n] = v;
+            sizes[slot] = n + 1;
+        }
+
+        void addReached(int v) {
+            if (reachedCount == reached.length) {
+                reached = Arrays.copyOf(reached, reachedCount * 2);
+            }
+            reached[reachedCount] = v;
+            reachedCount += 1;
+        }
+    }
+}
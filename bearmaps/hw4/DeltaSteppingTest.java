@@ -0,0 +1,129 @@
+package bearmaps.hw4;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.test.TestGraphs;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Compares DeltaStepping with OneToAllDijkstra on a small grid map. */
+public class DeltaSteppingTest {
+    private static CompactGraph graph;
+
+    @BeforeClass
+    public static void setUp() {
+        graph = TestGraphs.grid(14, 12, 89);
+    }
+
+    /* searches that split every round of two or more vertices between four stripes, so the
+    * concurrent path runs even on one core, and searches as the public methods run them. */
+    private static DeltaStepping.Search[] searches(boolean reverse, double bound, double delta) {
+        return new DeltaStepping.Search[] {
+            new DeltaStepping.Search(graph, reverse, bound, delta, 4, 2, 1),
+            new DeltaStepping.Search(graph, reverse, bound, delta, 1, 512, 128)
+        };
+    }
+
+    private static double[] deltas() {
+        double mean = graph.meanWeight();
+        return new double[] {DeltaStepping.defaultDelta(graph), mean / 10, 1000 * mean};
+    }
+
+    private static SearchSpace dijkstra(int source, boolean reverse, double bound) {
+        SearchSpace space = new SearchSpace();
+        OneToAllDijkstra.run(graph, source, reverse, bound, space);
+        return space;
+    }
+
+    /* checks that REACH holds exactly the vertices Dijkstra settles within BOUND, nearest first. */
+    private static void checkReach(DeltaStepping.Reach reach, SearchSpace expected, double bound) {
+        assertEquals(expected.settledCount(), reach.size());
+        Set<Integer> vertices = new HashSet<>();
+        for (int i = 0; i < reach.size(); i += 1) {
+            int v = reach.vertex(i);
+            assertTrue(vertices.add(v));
+            assertTrue(expected.isSettled(v));
+            assertEquals(expected.distTo(v), reach.distance(i), 1e-9);
+            assertTrue(reach.distance(i) <= bound);
+            assertTrue(i == 0 || reach.distance(i - 1) <= reach.distance(i));
+        }
+    }
+
+    @Test
+    public void testFull() {
+        for (int s = 0; s < graph.size(); s += 11) {
+            for (boolean reverse : new boolean[] {false, true}) {
+                SearchSpace expected = dijkstra(s, reverse, Double.POSITIVE_INFINITY);
+                for (double delta : deltas()) {
+                    for (DeltaStepping.Search search : searches(reverse, Double.POSITIVE_INFINITY, delta)) {
+                        search.run(s, null);
+                        for (int v = 0; v < graph.size(); v += 1) {
+                            assertEquals(expected.distTo(v), search.distTo(v), 1e-9);
+                        }
+                        checkReach(search.reach(), expected, Double.POSITIVE_INFINITY);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBounded() {
+        int s = graph.index(TestGraphs.gridId(12, 7, 6));
+        for (double blocks : new double[] {0, 1, 2.5, 6}) {
+            double bound = blocks * graph.meanWeight();
+            SearchSpace expected = dijkstra(s, false, bound);
+            for (double delta : deltas()) {
+                for (DeltaStepping.Search search : searches(false, bound, delta)) {
+                    search.run(s, null);
+                    checkReach(search.reach(), expected, bound);
+                }
+                checkReach(DeltaStepping.reach(graph, s, false, bound, delta), expected, bound);
+            }
+        }
+    }
+
+    @Test
+    public void testTargets() {
+        int s = graph.index(TestGraphs.gridId(12, 3, 4));
+        int island = graph.index(TestGraphs.ISLAND_A);
+        for (boolean reverse : new boolean[] {false, true}) {
+            SearchSpace expected = dijkstra(s, reverse, Double.POSITIVE_INFINITY);
+            int far = s;
+            for (int v = 0; v < graph.size(); v += 1) {
+                if (expected.distTo(v) != Double.POSITIVE_INFINITY && expected.distTo(v) > expected.distTo(far)) {
+                    far = v;
+                }
+            }
+            int near = graph.target(graph.outStart(s));
+            int[][] targetSets = {{near}, {near, near, s}, {far, near, far}, {island, near}, {island}, {}};
+            for (int[] targets : targetSets) {
+                for (double delta : deltas()) {
+                    for (DeltaStepping.Search search : searches(reverse, Double.POSITIVE_INFINITY, delta)) {
+                        search.run(s, targets.clone());
+                        checkTargets(search, targets, expected);
+                    }
+                    double[] distTo = DeltaStepping.run(graph, s, reverse, targets, delta);
+                    for (int t : targets) {
+                        assertEquals(expected.distTo(t), distTo[t], 1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    /* the targets are final; every other distance is no shorter than the true one. */
+    private static void checkTargets(DeltaStepping.Search search, int[] targets, SearchSpace expected) {
+        for (int t : targets) {
+            assertEquals(expected.distTo(t), search.distTo(t), 1e-9);
+        }
+        for (int v = 0; v < graph.size(); v += 1) {
+            assertTrue(search.distTo(v) >= expected.distTo(v) - 1e-9);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package bearmaps.hw4;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/* A* over the int-indexed CompactGraph. Same search as AStarSolver, but distances and
+* parents live in the primitive, generation-stamped arrays of a SearchSpace, so a query
+* does not box ids or distances and the arrays can be reused by the next query. */
+public class IndexedAStarSolver implements ShortestPathsSolver<Long> {
+
+    private SolverOutcome outcome;
+    private List<Long> solution;
+    private double solutionWeight;
+    private int numDequeued;
+    private double timeSpent;
+
+    public IndexedAStarSolver(CompactGraph graph, long start, long end, double timeout) {
+        this(graph, start, end, new SearchBudget(timeout), new SearchSpace(graph.size()));
+    }
+
+    /* same as above, searching in SPACE and giving up with TIMEOUT once BUDGET is exhausted. */
+    public IndexedAStarSolver(CompactGraph graph, long start, long end, SearchBudget budget, SearchSpace space) {
+        this(graph, start, end, budget, space, graph::distance);
+    }
+
+    /* same as above, guided by HEURISTIC instead of the great-circle distance. */
+    public IndexedAStarSolver(CompactGraph graph, long start, long end, SearchBudget budget, SearchSpace space,
+                              IndexedHeuristic heuristic) {
+        solution = new ArrayList<>();
+        Stopwatch sw = new Stopwatch();
+        int s = graph.index(start);
+        int t = graph.index(end);
+        outcome = SolverOutcome.UNSOLVABLE;
+        if (s == -1 || t == -1) {
+            return;
+        }
+
+        space.reset(graph.size());
+        space.setDistTo(s, 0.0, -1);
+        space.push(s, heuristic.estimate(s, t));
+
+        while (!space.isHeapEmpty()) {
+            int cur = space.pop();
+            if (space.isSettled(cur)) {
+                continue; // stale copy of a vertex that was already dequeued with a better priority
+            }
+            if (cur == t) {
+                outcome = SolverOutcome.SOLVED;
+                solutionWeight = space.distTo(t);
+                for (int v = t; v != -1; v = space.edgeTo(v)) {
+                    solution.add(graph.id(v));
+                }
+                Collections.reverse(solution);
+                break;
+            }
+            space.settle(cur);
+            numDequeued += 1;
+
+            double curDist = space.distTo(cur);
+            for (int e = graph.outStart(cur); e < graph.outEnd(cur); e += 1) {
+                int to = graph.target(e);
+                if (space.isSettled(to)) {
+                    continue;
+                }
+                double dist = curDist + graph.weight(e);
+                if (dist < space.distTo(to)) {
+                    space.setDistTo(to, dist, cur);
+                    space.push(to, dist + heuristic.estimate(to, t));
+                }
+            }
+            if (budget.exhausted(numDequeued)) {
+                outcome = SolverOutcome.TIMEOUT;
+                break;
+            }
+        }
+        timeSpent = sw.elapsedTime();
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<Long> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    @Override
+    public int numStatesExplored() {
+        return numDequeued;
+    }
+
+    @Override
+    public double explorationTime() {
+        return timeSpent;
+    }
+}
@@ -0,0 +1,10 @@
+package bearmaps.hw4;
+
+/**
+ * Lower bound on the shortest path distance between two vertices of a CompactGraph,
+ * used by the indexed solvers in place of estimatedDistanceToGoal.
+ * Implementations must be consistent: estimate(v, goal) <= weight(v, w) + estimate(w, goal).
+ */
+public interface IndexedHeuristic {
+    double estimate(int v, int goal);
+}
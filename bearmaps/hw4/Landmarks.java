@@ -0,0 +1,172 @@
+package bearmaps.hw4;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ALT heuristic: exact distances to and from a few landmark vertices, turned into lower
+ * bounds with the triangle inequality. For a landmark L and vertices v, goal:
+ *     d(v, goal) >= d(L, goal) - d(L, v)   and   d(v, goal) >= d(v, L) - d(goal, L).
+ * A landmark "behind" the goal, seen from v, gives a bound that follows the actual roads
+ * around the bay and the hills, which is much tighter than the great-circle distance.
+ *
+ * Landmarks are picked farthest-first: each new landmark is the vertex whose road
+ * distance to the closest landmark chosen so far is largest, which spreads them along the
+ * edge of the map. Distances are kept vertex-major in two flat arrays, so estimate() reads
+ * one contiguous block per vertex.
+ */
+public class Landmarks implements IndexedHeuristic {
+
+    /** Most one-to-all searches run to find a vertex of the main component. */
+    private static final int MAX_PROBES = 8;
+    /** Most random vertices drawn while looking for those searches' sources. */
+    private static final int MAX_DRAWS = 64 * MAX_PROBES;
+
+    private final CompactGraph graph;
+    private final int[] landmarks;
+    private final double[] from; // from[v * k + i] = d(landmark i, v)
+    private final double[] to;   // to[v * k + i] = d(v, landmark i)
+
+    private Landmarks(CompactGraph graph, int[] landmarks, double[] from, double[] to) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+    }
+
+    /** Picks K landmarks of GRAPH farthest-first and precomputes their distances. */
+    public static Landmarks select(CompactGraph graph, int k) {
+        int n = graph.size();
+        k = Math.min(k, n);
+        int[] landmarks = new int[k];
+        double[] from = new double[n * k];
+        double[] to = new double[n * k];
+        double[] closest = new double[n]; // road distance from the nearest chosen landmark
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+        SearchSpace space = new SearchSpace(n);
+
+        /* the first landmark is the vertex farthest from some vertex of the main component */
+        int next = k == 0 ? -1 : farthestFrom(graph, space);
+        for (int i = 0; i < k; i += 1) {
+            landmarks[i] = next;
+            OneToAllDijkstra.run(graph, next, false, Double.POSITIVE_INFINITY, space);
+            for (int v = 0; v < n; v += 1) {
+                from[v * k + i] = space.distTo(v);
+                closest[v] = Math.min(closest[v], space.distTo(v));
+            }
+            OneToAllDijkstra.run(graph, next, true, Double.POSITIVE_INFINITY, space);
+            for (int v = 0; v < n; v += 1) {
+                to[v * k + i] = space.distTo(v);
+            }
+            next = farthest(closest);
+        }
+        return new Landmarks(graph, landmarks, from, to);
+    }
+
+    /* returns the vertex farthest from a vertex that reaches most of the graph, so that
+    * landmarks are not wasted on small islands or isolated points of interest. The source
+    * is the best of a few random vertices, each outside the areas the earlier ones reach;
+    * a vertex that reaches half the graph ends the search. */
+    private static int farthestFrom(CompactGraph graph, SearchSpace space) {
+        int n = graph.size();
+        boolean[] covered = new boolean[n];
+        Random random = new Random(n);
+        int bestSource = 0;
+        int bestReach = -1;
+        int probes = 0;
+        for (int draw = 0; draw < MAX_DRAWS && probes < MAX_PROBES && bestReach * 2 <= n; draw += 1) {
+            int v = random.nextInt(n);
+            if (covered[v] || graph.outStart(v) == graph.outEnd(v)) {
+                continue;
+            }
+            probes += 1;
+            int reach = OneToAllDijkstra.run(graph, v, false, Double.POSITIVE_INFINITY, space);
+            for (int i = 0; i < space.settledCount(); i += 1) {
+                covered[space.settledVertex(i)] = true;
+            }
+            if (reach > bestReach) {
+                bestReach = reach;
+                bestSource = v;
+            }
+        }
+        OneToAllDijkstra.run(graph, bestSource, false, Double.POSITIVE_INFINITY, space);
+        int best = bestSource;
+        for (int v = 0; v < graph.size(); v += 1) {
+            if (space.isReached(v) && space.distTo(v) > space.distTo(best)) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /* returns the vertex with the largest finite distance in DIST. */
+    private static int farthest(double[] dist) {
+        int best = 0;
+        for (int v = 0; v < dist.length; v += 1) {
+            if (dist[v] != Double.POSITIVE_INFINITY && (dist[best] == Double.POSITIVE_INFINITY
+                    || dist[v] > dist[best])) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the number of landmarks. */
+    public int size() {
+        return landmarks.length;
+    }
+
+    /** Returns the OSM ids of the landmarks. */
+    public long[] landmarkIds() {
+        long[] ids = new long[landmarks.length];
+        for (int i = 0; i < landmarks.length; i += 1) {
+            ids[i] = graph.id(landmarks[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the best lower bound on d(V, GOAL): the largest landmark bound, and never
+     * less than the great-circle distance. Landmarks that cannot reach, or cannot be
+     * reached from, one of the two vertices are skipped.
+     */
+    @Override
+    public double estimate(int v, int goal) {
+        double best = graph.distance(v, goal);
+        int k = landmarks.length;
+        int vi = v * k;
+        int gi = goal * k;
+        for (int i = 0; i < k; i += 1) {
+            double forward = from[gi + i] - from[vi + i];
+            if (forward > best && forward != Double.POSITIVE_INFINITY) {
+                best = forward;
+            }
+            double backward = to[vi + i] - to[gi + i];
+            if (backward > best && backward != Double.POSITIVE_INFINITY) {
+                best = backward;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns a view of G, the graph these landmarks were computed on, whose
+     * estimatedDistanceToGoal is the landmark bound, so that AStarSolver can use it.
+     */
+    public AStarGraph<Long> guide(AStarGraph<Long> g) {
+        return new AStarGraph<Long>() {
+            @Override
+            public List<WeightedEdge<Long>> neighbors(Long v) {
+                return g.neighbors(v);
+            }
+
+            @Override
+            public double estimatedDistanceToGoal(Long s, Long goal) {
+                return estimate(graph.index(s), graph.index(goal));
+            }
+        };
+    }
+}
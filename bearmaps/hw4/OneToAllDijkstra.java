@@ -0,0 +1,84 @@
+package bearmaps.hw4;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+
+/* Dijkstra's algorithm from one vertex to all others in a CompactGraph. The distances and the
+* shortest path tree are left in the given SearchSpace. A reverse search follows incoming
+* edges, giving distances from every vertex to the source instead of from it. */
+public class OneToAllDijkstra {
+
+    private OneToAllDijkstra() {
+    }
+
+    /* searches from SOURCE until every vertex within distance BOUND is settled and returns
+    * the number of settled vertices. Pass infinity to search the whole graph. */
+    public static int run(CompactGraph graph, int source, boolean reverse, double bound, SearchSpace space) {
+        space.reset(graph.size());
+        space.setDistTo(source, 0.0, -1);
+        space.push(source, 0.0);
+        int settled = 0;
+        while (!space.isHeapEmpty()) {
+            if (space.peekPriority() > bound) {
+                break;
+            }
+            int cur = space.pop();
+            if (space.isSettled(cur)) {
+                continue;
+            }
+            space.settle(cur);
+            settled += 1;
+            double curDist = space.distTo(cur);
+            if (reverse) {
+                for (int i = graph.inStart(cur); i < graph.inEnd(cur); i += 1) {
+                    relax(space, cur, graph.source(i), curDist + graph.weight(graph.inEdge(i)));
+                }
+            } else {
+                for (int e = graph.outStart(cur); e < graph.outEnd(cur); e += 1) {
+                    relax(space, cur, graph.target(e), curDist + graph.weight(e));
+                }
+            }
+        }
+        return settled;
+    }
+
+    /* searches from SOURCE until every vertex marked in TARGETS is settled, or the whole
+    * reachable graph is, and returns the number of settled vertices. TARGETS has one entry
+    * per vertex and COUNT of them are true. */
+    public static int run(CompactGraph graph, int source, boolean reverse, boolean[] targets, int count,
+                          SearchSpace space) {
+        space.reset(graph.size());
+        space.setDistTo(source, 0.0, -1);
+        space.push(source, 0.0);
+        int settled = 0;
+        int remaining = count;
+        while (remaining > 0 && !space.isHeapEmpty()) {
+            int cur = space.pop();
+            if (space.isSettled(cur)) {
+                continue;
+            }
+            space.settle(cur);
+            settled += 1;
+            if (targets[cur]) {
+                remaining -= 1;
+            }
+            double curDist = space.distTo(cur);
+            if (reverse) {
+                for (int i = graph.inStart(cur); i < graph.inEnd(cur); i += 1) {
+                    relax(space, cur, graph.source(i), curDist + graph.weight(graph.inEdge(i)));
+                }
+            } else {
+                for (int e = graph.outStart(cur); e < graph.outEnd(cur); e += 1) {
+                    relax(space, cur, graph.target(e), curDist + graph.weight(e));
+                }
+            }
+        }
+        return settled;
+    }
+
+    private static void relax(SearchSpace space, int from, int to, double dist) {
+        if (dist < space.distTo(to)) {
+            space.setDistTo(to, dist, from);
+            space.push(to, dist);
+        }
+    }
+}
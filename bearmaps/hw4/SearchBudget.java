@@ -0,0 +1,65 @@
+package bearmaps.hw4;
+
+/**
+ * Limits on how long a search may run: a wall-clock deadline, an optional number of
+ * dequeued states, and a cancel flag that another thread can raise (for example when the
+ * client that asked for the route goes away). Interrupting the searching thread cancels too.
+ *
+ * Solvers call exhausted() once per dequeued state. The state count is compared every
+ * time, but the clock, the flag and the interrupt status are only read every
+ * CHECK_INTERVAL calls, so the check costs next to nothing. Once exhausted, a budget stays
+ * exhausted. The deadline starts when the budget is created, so a budget shared by
+ * several searches in a row bounds their total time; the state limit applies to each
+ * search on its own. Only one search may use a budget at a time.
+ */
+public class SearchBudget {
+
+    /** maxStates value for no limit on the number of states. */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /** Number of dequeued states between two reads of the clock. */
+    private static final int CHECK_INTERVAL = 64;
+
+    private final long deadline;
+    private final int maxStates;
+    private volatile boolean cancelled;
+    private boolean expired;
+    private int sinceCheck;
+
+    /** Creates a budget of TIMEOUT seconds from now and no state limit. */
+    public SearchBudget(double timeout) {
+        this(timeout, UNLIMITED);
+    }
+
+    /** Creates a budget of TIMEOUT seconds from now and at most MAXSTATES dequeued states per search. */
+    public SearchBudget(double timeout, int maxStates) {
+        deadline = System.nanoTime() + (long) Math.min(timeout * 1e9, Long.MAX_VALUE / 2);
+        this.maxStates = maxStates;
+    }
+
+    /** Asks the search using this budget to stop. May be called from any thread. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /* returns true if a search that has dequeued NUMDEQUEUED states must stop now. */
+    public boolean exhausted(int numDequeued) {
+        if (expired) {
+            return true;
+        }
+        if (numDequeued >= maxStates) {
+            return true;
+        }
+        sinceCheck += 1;
+        if (sinceCheck < CHECK_INTERVAL) {
+            return false;
+        }
+        sinceCheck = 0;
+        expired = cancelled || Thread.currentThread().isInterrupted() || System.nanoTime() - deadline >= 0;
+        return expired;
+    }
+}
@@ -0,0 +1,196 @@
+package bearmaps.hw4;
+
+import bearmaps.proj2ab.IndexedMinPQ;
+
+import java.util.Arrays;
+
+/**
+ * Reusable per-query state for searches over int-indexed vertices: distance and parent
+ * arrays, a settled mark, the order vertices were settled in and a binary heap of
+ * (priority, vertex) pairs, all primitive.
+ *
+ * Instead of clearing the arrays between queries, every entry carries the generation
+ * it was written in; reset() just bumps the generation, so entries left over from
+ * earlier queries read as "unreached". A SearchSpace is not thread-safe; searches on
+ * a server thread borrow theirs from SearchSpacePool.
+ *
+ * The queue is a lazy binary heap by default: pushing a vertex again adds another entry
+ * and the searches skip the stale ones. Given an IndexedMinPQ instead, a vertex is queued
+ * at most once and pushing it again with a smaller priority decreases its key.
+ */
+public class SearchSpace {
+
+    private static final int INIT_HEAP_CAPACITY = 64;
+
+    private double[] distTo;
+    private int[] edgeTo;
+    private int[] reached;  // generation in which distTo/edgeTo were last written
+    private int[] settled;  // generation in which the vertex was settled
+    private int[] order;    // settled vertices of the current query, in settling order
+    private int settledCount;
+    private int generation;
+
+    /* lazy binary heap: a vertex may appear more than once, stale copies are skipped
+     * by the solver once the vertex has been settled. */
+    private double[] heapKeys;
+    private int[] heapItems;
+    private int heapSize;
+    private final IndexedMinPQ queue; // replaces the lazy heap if not null
+
+    public SearchSpace() {
+        this(0);
+    }
+
+    public SearchSpace(int capacity) {
+        this(capacity, null);
+    }
+
+    /* a space whose searches use QUEUE as their priority queue. */
+    public SearchSpace(int capacity, IndexedMinPQ queue) {
+        this.queue = queue;
+        distTo = new double[capacity];
+        edgeTo = new int[capacity];
+        reached = new int[capacity];
+        settled = new int[capacity];
+        order = new int[capacity];
+        generation = 1;
+        heapKeys = new double[INIT_HEAP_CAPACITY];
+        heapItems = new int[INIT_HEAP_CAPACITY];
+    }
+
+    /* start a new query over a graph with N vertices. */
+    public void reset(int n) {
+        if (n > distTo.length) {
+            distTo = new double[n];
+            edgeTo = new int[n];
+            reached = new int[n];
+            settled = new int[n];
+            order = new int[n];
+            generation = 0;
+        }
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            generation = 0;
+        }
+        generation += 1;
+        settledCount = 0;
+        heapSize = 0;
+        if (queue != null) {
+            queue.ensureCapacity(n);
+            queue.clear();
+        }
+    }
+
+    /* returns the best known distance to V, or infinity if V has not been reached. */
+    public double distTo(int v) {
+        return reached[v] == generation ? distTo[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /* returns the predecessor of V on its best known path, or -1. */
+    public int edgeTo(int v) {
+        return reached[v] == generation ? edgeTo[v] : -1;
+    }
+
+    public boolean isReached(int v) {
+        return reached[v] == generation;
+    }
+
+    public void setDistTo(int v, double dist, int parent) {
+        distTo[v] = dist;
+        edgeTo[v] = parent;
+        reached[v] = generation;
+    }
+
+    public boolean isSettled(int v) {
+        return settled[v] == generation;
+    }
+
+    public void settle(int v) {
+        settled[v] = generation;
+        order[settledCount] = v;
+        settledCount += 1;
+    }
+
+    /* returns the number of vertices settled since the last reset. */
+    public int settledCount() {
+        return settledCount;
+    }
+
+    /* returns the I-th vertex settled since the last reset. */
+    public int settledVertex(int i) {
+        return order[i];
+    }
+
+    /* inserts V into the heap with the given priority. */
+    public void push(int v, double priority) {
+        if (queue != null) {
+            if (!queue.contains(v)) {
+                queue.add(v, priority);
+            } else if (priority < queue.priority(v)) {
+                queue.changePriority(v, priority);
+            }
+            return;
+        }
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapItems = Arrays.copyOf(heapItems, heapSize * 2);
+        }
+        int i = heapSize;
+        heapSize += 1;
+        /* move parents down until the hole reaches the right spot */
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKeys[parent] <= priority) {
+                break;
+            }
+            heapKeys[i] = heapKeys[parent];
+            heapItems[i] = heapItems[parent];
+            i = parent;
+        }
+        heapKeys[i] = priority;
+        heapItems[i] = v;
+    }
+
+    public boolean isHeapEmpty() {
+        return queue != null ? queue.size() == 0 : heapSize == 0;
+    }
+
+    /* returns the vertex of the top entry. Assumes the heap is not empty. */
+    public int peek() {
+        return queue != null ? queue.smallest() : heapItems[0];
+    }
+
+    /* returns the priority of the top entry. Assumes the heap is not empty. */
+    public double peekPriority() {
+        return queue != null ? queue.smallestPriority() : heapKeys[0];
+    }
+
+    /* removes and returns the vertex with the smallest priority. Assumes the heap is not empty. */
+    public int pop() {
+        if (queue != null) {
+            return queue.popSmallest();
+        }
+        int top = heapItems[0];
+        heapSize -= 1;
+        double key = heapKeys[heapSize];
+        int item = heapItems[heapSize];
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child += 1;
+            }
+            if (key <= heapKeys[child]) {
+                break;
+            }
+            heapKeys[i] = heapKeys[child];
+            heapItems[i] = heapItems[child];
+            i = child;
+        }
+        heapKeys[i] = key;
+        heapItems[i] = item;
+        return top;
+    }
+}
@@ -0,0 +1,71 @@
+package bearmaps.hw4;
+
+import bearmaps.proj2ab.IndexedHeapMinPQ;
+import bearmaps.proj2ab.PairingHeapMinPQ;
+import bearmaps.proj2ab.RadixHeapMinPQ;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-thread pool of SearchSpaces.
+ * A search borrows the spaces it needs with acquire() and hands them back with release()
+ * once its result has been read out; the next query on the same thread then reuses the
+ * arrays, and resetting them only bumps their generation instead of clearing n entries.
+ * Spaces never move between threads, so the pool needs no locking.
+ *
+ * New spaces queue vertices in an IndexedHeapMinPQ; start the server with
+ * -Dbearmaps.search.queue=lazy to use the lazy binary heap of SearchSpace instead, with
+ * -Dbearmaps.search.queue=radix to use a RadixHeapMinPQ, or with
+ * -Dbearmaps.search.queue=pairing to use a PairingHeapMinPQ.
+ */
+public class SearchSpacePool {
+
+    /** Idle spaces kept per thread; a bidirectional search holds two at a time. */
+    private static final int MAX_IDLE_PER_THREAD = 4;
+    /** Priority queue used by new spaces, "indexed", "lazy", "radix" or "pairing". */
+    private static final String QUEUE = System.getProperty("bearmaps.search.queue", "indexed");
+
+    private static final ThreadLocal<ArrayDeque<SearchSpace>> IDLE = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final AtomicLong CREATED = new AtomicLong();
+
+    private SearchSpacePool() {
+    }
+
+    /** Returns an idle space of the calling thread, or a new one if there is none. */
+    public static SearchSpace acquire() {
+        SearchSpace space = IDLE.get().pollFirst();
+        if (space == null) {
+            CREATED.incrementAndGet();
+            space = newSpace();
+        }
+        return space;
+    }
+
+    private static SearchSpace newSpace() {
+        switch (QUEUE) {
+            case "lazy":
+                return new SearchSpace();
+            case "radix":
+                return new SearchSpace(0, new RadixHeapMinPQ());
+            case "pairing":
+                return new SearchSpace(0, new PairingHeapMinPQ());
+            case "indexed":
+            default:
+                return new SearchSpace(0, new IndexedHeapMinPQ());
+        }
+    }
+
+    /** Gives SPACE back to the calling thread's pool. It must not be used afterwards. */
+    public static void release(SearchSpace space) {
+        ArrayDeque<SearchSpace> idle = IDLE.get();
+        if (idle.size() < MAX_IDLE_PER_THREAD) {
+            idle.addFirst(space);
+        }
+    }
+
+    /** Returns how many spaces have been created so far, over all threads. */
+    public static long created() {
+        return CREATED.get();
+    }
+}
@@ -0,0 +1,220 @@
+package bearmaps.hw4.ch;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A contraction hierarchy over a CompactGraph, as produced by ContractionHierarchyBuilder.
+ *
+ * Every vertex has a rank (its position in the contraction order). The "up" arcs of v lead
+ * from v to higher ranked vertices and are used by the forward search; the "down" arcs of v
+ * are arcs u -> v from higher ranked vertices u, used (reversed) by the backward search.
+ * An arc is either an original graph edge (middle vertex -1) or a shortcut standing for
+ * the two arcs u -> middle and middle -> w. Unpacking shortcuts always ends in original
+ * edges, so the way names Router.routeDirections looks up stay available.
+ */
+public class ContractionHierarchy {
+
+    private static final int MAGIC = 0x43484231; // "CHB1"
+
+    private final CompactGraph graph;
+    private final int[] rank;
+
+    private final int[] upStart;
+    private final int[] upTarget;
+    private final double[] upWeight;
+    private final int[] upMiddle;
+
+    private final int[] downStart;
+    private final int[] downSource;
+    private final double[] downWeight;
+    private final int[] downMiddle;
+
+    ContractionHierarchy(CompactGraph graph, int[] rank,
+                         int[] upStart, int[] upTarget, double[] upWeight, int[] upMiddle,
+                         int[] downStart, int[] downSource, double[] downWeight, int[] downMiddle) {
+        this.graph = graph;
+        this.rank = rank;
+        this.upStart = upStart;
+        this.upTarget = upTarget;
+        this.upWeight = upWeight;
+        this.upMiddle = upMiddle;
+        this.downStart = downStart;
+        this.downSource = downSource;
+        this.downWeight = downWeight;
+        this.downMiddle = downMiddle;
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public int rank(int v) {
+        return rank[v];
+    }
+
+    public int upStart(int v) {
+        return upStart[v];
+    }
+
+    public int upEnd(int v) {
+        return upStart[v + 1];
+    }
+
+    public int upTarget(int a) {
+        return upTarget[a];
+    }
+
+    public double upWeight(int a) {
+        return upWeight[a];
+    }
+
+    public int downStart(int v) {
+        return downStart[v];
+    }
+
+    public int downEnd(int v) {
+        return downStart[v + 1];
+    }
+
+    public int downSource(int a) {
+        return downSource[a];
+    }
+
+    public double downWeight(int a) {
+        return downWeight[a];
+    }
+
+    /** Returns the number of arcs, original edges and shortcuts, in both directions. */
+    public int arcCount() {
+        return upTarget.length + downSource.length;
+    }
+
+    /**
+     * Appends to PATH the ids of the vertices after U on the original-edge path that the
+     * arc U -> W stands for, ending with W. Assumes the hierarchy has an arc from U to W.
+     */
+    public void unpack(int u, int w, List<Long> path) {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = w;
+        int from = u;
+        while (top > 0) {
+            int to = stack[top - 1];
+            int middle = middle(from, to);
+            if (middle == -1) {
+                path.add(graph.id(to));
+                from = to;
+                top -= 1;
+            } else {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = middle;
+            }
+        }
+    }
+
+    /* returns the middle vertex of the arc from U to W, -1 if it is an original edge. */
+    private int middle(int u, int w) {
+        if (rank[u] < rank[w]) {
+            for (int a = upStart[u]; a < upStart[u + 1]; a += 1) {
+                if (upTarget[a] == w) {
+                    return upMiddle[a];
+                }
+            }
+        } else {
+            for (int a = downStart[w]; a < downStart[w + 1]; a += 1) {
+                if (downSource[a] == u) {
+                    return downMiddle[a];
+                }
+            }
+        }
+        throw new IllegalArgumentException("No arc from " + graph.id(u) + " to " + graph.id(w) + ".");
+    }
+
+    /** Writes this hierarchy to FILENAME so that it can be loaded instead of rebuilt. */
+    public void save(String filename) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(graph.size());
+            out.writeInt(graph.edgeCount());
+            out.writeLong(fingerprint(graph));
+            writeInts(out, rank);
+            writeInts(out, upStart);
+            writeInts(out, upTarget);
+            writeDoubles(out, upWeight);
+            writeInts(out, upMiddle);
+            writeInts(out, downStart);
+            writeInts(out, downSource);
+            writeDoubles(out, downWeight);
+            writeInts(out, downMiddle);
+        }
+    }
+
+    /**
+     * Reads a hierarchy written by save(). Throws an IOException if the file was not built
+     * from GRAPH.
+     */
+    public static ContractionHierarchy load(String filename, CompactGraph graph) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC || in.readInt() != graph.size()
+                    || in.readInt() != graph.edgeCount() || in.readLong() != fingerprint(graph)) {
+                throw new IOException(filename + " was not built from this graph.");
+            }
+            return new ContractionHierarchy(graph, readInts(in),
+                    readInts(in), readInts(in), readDoubles(in), readInts(in),
+                    readInts(in), readInts(in), readDoubles(in), readInts(in));
+        }
+    }
+
+    /* cheap checksum of the vertex ids, to catch a hierarchy loaded against the wrong map. */
+    private static long fingerprint(CompactGraph graph) {
+        long h = 17;
+        for (int v = 0; v < graph.size(); v += 1) {
+            h = h * 31 + graph.id(v);
+        }
+        return h;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] a) throws IOException {
+        out.writeInt(a.length);
+        for (int x : a) {
+            out.writeInt(x);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] a) throws IOException {
+        out.writeInt(a.length);
+        for (double x : a) {
+            out.writeDouble(x);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] a = new int[in.readInt()];
+        for (int i = 0; i < a.length; i += 1) {
+            a[i] = in.readInt();
+        }
+        return a;
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        double[] a = new double[in.readInt()];
+        for (int i = 0; i < a.length; i += 1) {
+            a[i] = in.readDouble();
+        }
+        return a;
+    }
+}
@@ -0,0 +1,268 @@
+package bearmaps.hw4.ch;
+
+import bearmaps.hw4.SearchSpace;
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.hw4.streetmap.StreetMapGraph;
+import bearmaps.proj2ab.ArraylistHeapMinPQ;
+import bearmaps.proj2ab.ExtrinsicMinPQ;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Offline preprocessing that turns a CompactGraph into a ContractionHierarchy.
+ *
+ * Vertices are contracted one at a time, cheapest first. Contracting v removes it from the
+ * remaining graph and adds a shortcut u -> w for every pair of neighbors whose shortest
+ * path runs through v, which a bounded local Dijkstra (the witness search) checks. The
+ * cost of a vertex is its edge difference (shortcuts added minus arcs removed) plus the
+ * number of already contracted neighbors, which spreads contraction evenly over the map.
+ * Costs are updated lazily: a popped vertex is re-evaluated and put back if it is no
+ * longer the cheapest.
+ *
+ * Run main to build the hierarchy of an OSM file once and save it next to the map.
+ */
+public class ContractionHierarchyBuilder {
+
+    /** A witness search gives up after settling this many vertices. */
+    private static final int WITNESS_SETTLE_LIMIT = 200;
+
+    private final CompactGraph graph;
+    private final Arcs[] out;
+    private final Arcs[] in;
+    private final Arcs[] up;
+    private final Arcs[] down;
+    private final int[] rank;
+    private final int[] contractedNeighbors;
+    private final SearchSpace witness;
+
+    /* growable list of arcs of one vertex; OTHER is the head for outgoing lists and the
+     * tail for incoming ones. */
+    private static class Arcs {
+        int[] other = new int[4];
+        double[] weight = new double[4];
+        int[] middle = new int[4];
+        int size;
+
+        int find(int v) {
+            for (int i = 0; i < size; i += 1) {
+                if (other[i] == v) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void add(int v, double w, int mid) {
+            if (size == other.length) {
+                other = Arrays.copyOf(other, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            other[size] = v;
+            weight[size] = w;
+            middle[size] = mid;
+            size += 1;
+        }
+
+        void remove(int i) {
+            size -= 1;
+            other[i] = other[size];
+            weight[i] = weight[size];
+            middle[i] = middle[size];
+        }
+    }
+
+    private ContractionHierarchyBuilder(CompactGraph graph) {
+        this.graph = graph;
+        int n = graph.size();
+        out = new Arcs[n];
+        in = new Arcs[n];
+        up = new Arcs[n];
+        down = new Arcs[n];
+        for (int v = 0; v < n; v += 1) {
+            out[v] = new Arcs();
+            in[v] = new Arcs();
+            up[v] = new Arcs();
+            down[v] = new Arcs();
+        }
+        rank = new int[n];
+        contractedNeighbors = new int[n];
+        witness = new SearchSpace(n);
+
+        for (int v = 0; v < n; v += 1) {
+            for (int e = graph.outStart(v); e < graph.outEnd(v); e += 1) {
+                if (graph.target(e) != v) {
+                    addArc(v, graph.target(e), graph.weight(e), -1);
+                }
+            }
+        }
+    }
+
+    /** Contracts every vertex of GRAPH and returns the resulting hierarchy. */
+    public static ContractionHierarchy build(CompactGraph graph) {
+        ContractionHierarchyBuilder builder = new ContractionHierarchyBuilder(graph);
+        builder.contractAll();
+        return builder.toHierarchy();
+    }
+
+    private void contractAll() {
+        int n = graph.size();
+        double[] cost = new double[n];
+        ExtrinsicMinPQ<Integer> order = new ArraylistHeapMinPQ<>();
+        for (int v = 0; v < n; v += 1) {
+            cost[v] = cost(v);
+            order.add(v, cost[v]);
+        }
+
+        int next = 0;
+        while (order.size() > 0) {
+            int v = order.removeSmallest();
+            cost[v] = cost(v);
+            if (order.size() > 0 && cost[v] > cost[order.getSmallest()]) {
+                order.add(v, cost[v]); // lazy update: somebody else is cheaper now
+                continue;
+            }
+            rank[v] = next;
+            next += 1;
+            contract(v);
+        }
+    }
+
+    private double cost(int v) {
+        return shortcuts(v, false) - out[v].size - in[v].size + contractedNeighbors[v];
+    }
+
+    /* removes V from the remaining graph, adding the shortcuts it needs. */
+    private void contract(int v) {
+        shortcuts(v, true);
+        /* every arc still attached to v leads to a vertex contracted later, i.e. upwards */
+        for (int i = 0; i < out[v].size; i += 1) {
+            int w = out[v].other[i];
+            up[v].add(w, out[v].weight[i], out[v].middle[i]);
+            in[w].remove(in[w].find(v));
+            contractedNeighbors[w] += 1;
+        }
+        for (int i = 0; i < in[v].size; i += 1) {
+            int u = in[v].other[i];
+            down[v].add(u, in[v].weight[i], in[v].middle[i]);
+            out[u].remove(out[u].find(v));
+            contractedNeighbors[u] += 1;
+        }
+        out[v] = new Arcs();
+        in[v] = new Arcs();
+    }
+
+    /* counts the shortcuts needed to contract V, adding them to the graph if ADD is true. */
+    private int shortcuts(int v, boolean add) {
+        int count = 0;
+        Arcs ins = in[v];
+        Arcs outs = out[v];
+        for (int i = 0; i < ins.size; i += 1) {
+            int u = ins.other[i];
+            double limit = -1;
+            for (int j = 0; j < outs.size; j += 1) {
+                if (outs.other[j] != u) {
+                    limit = Math.max(limit, ins.weight[i] + outs.weight[j]);
+                }
+            }
+            if (limit < 0) {
+                continue; // v's only way out leads back to u
+            }
+            witnessSearch(u, v, limit);
+            for (int j = 0; j < outs.size; j += 1) {
+                int w = outs.other[j];
+                double via = ins.weight[i] + outs.weight[j];
+                if (w != u && witness.distTo(w) > via) {
+                    count += 1;
+                    if (add) {
+                        addArc(u, w, via, v);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /* Dijkstra from SOURCE in the remaining graph without SKIP, up to distance LIMIT. */
+    private void witnessSearch(int source, int skip, double limit) {
+        witness.reset(graph.size());
+        witness.setDistTo(source, 0.0, -1);
+        witness.push(source, 0.0);
+        int settled = 0;
+        while (!witness.isHeapEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+            if (witness.peekPriority() > limit) {
+                return;
+            }
+            int x = witness.pop();
+            if (witness.isSettled(x)) {
+                continue;
+            }
+            witness.settle(x);
+            settled += 1;
+            Arcs arcs = out[x];
+            for (int i = 0; i < arcs.size; i += 1) {
+                int y = arcs.other[i];
+                double dist = witness.distTo(x) + arcs.weight[i];
+                if (y != skip && dist < witness.distTo(y)) {
+                    witness.setDistTo(y, dist, x);
+                    witness.push(y, dist);
+                }
+            }
+        }
+    }
+
+    /* adds the arc U -> W, or lowers the weight of an existing one. */
+    private void addArc(int u, int w, double weight, int middle) {
+        int i = out[u].find(w);
+        if (i == -1) {
+            out[u].add(w, weight, middle);
+            in[w].add(u, weight, middle);
+        } else if (weight < out[u].weight[i]) {
+            out[u].weight[i] = weight;
+            out[u].middle[i] = middle;
+            int j = in[w].find(u);
+            in[w].weight[j] = weight;
+            in[w].middle[j] = middle;
+        }
+    }
+
+    private ContractionHierarchy toHierarchy() {
+        int n = graph.size();
+        int[] upStart = new int[n + 1];
+        int[] downStart = new int[n + 1];
+        for (int v = 0; v < n; v += 1) {
+            upStart[v + 1] = upStart[v] + up[v].size;
+            downStart[v + 1] = downStart[v] + down[v].size;
+        }
+        int[] upTarget = new int[upStart[n]];
+        double[] upWeight = new double[upStart[n]];
+        int[] upMiddle = new int[upStart[n]];
+        int[] downSource = new int[downStart[n]];
+        double[] downWeight = new double[downStart[n]];
+        int[] downMiddle = new int[downStart[n]];
+        for (int v = 0; v < n; v += 1) {
+            System.arraycopy(up[v].other, 0, upTarget, upStart[v], up[v].size);
+            System.arraycopy(up[v].weight, 0, upWeight, upStart[v], up[v].size);
+            System.arraycopy(up[v].middle, 0, upMiddle, upStart[v], up[v].size);
+            System.arraycopy(down[v].other, 0, downSource, downStart[v], down[v].size);
+            System.arraycopy(down[v].weight, 0, downWeight, downStart[v], down[v].size);
+            System.arraycopy(down[v].middle, 0, downMiddle, downStart[v], down[v].size);
+        }
+        return new ContractionHierarchy(graph, rank, upStart, upTarget, upWeight, upMiddle,
+                downStart, downSource, downWeight, downMiddle);
+    }
+
+    /* Builds the hierarchy of the OSM file args[0] and writes it to args[1]. */
+    public static void main(String[] args) throws IOException {
+        Stopwatch sw = new Stopwatch();
+        CompactGraph graph = new StreetMapGraph(args[0]).compact();
+        System.out.println("Graph loaded: " + graph.size() + " vertices, " + graph.edgeCount()
+                + " edges, " + sw.elapsedTime() + " seconds.");
+        ContractionHierarchy ch = build(graph);
+        System.out.println("Hierarchy built: " + ch.arcCount() + " arcs, " + sw.elapsedTime() + " seconds.");
+        ch.save(args[1]);
+        System.out.println("Saved to " + args[1] + ".");
+    }
+}
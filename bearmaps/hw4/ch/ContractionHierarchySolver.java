@@ -0,0 +1,185 @@
+package bearmaps.hw4.ch;
+
+import bearmaps.hw4.SearchBudget;
+import bearmaps.hw4.SearchSpace;
+import bearmaps.hw4.ShortestPathsSolver;
+import bearmaps.hw4.SolverOutcome;
+import bearmaps.hw4.streetmap.CompactGraph;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/* Point-to-point query on a ContractionHierarchy: a forward Dijkstra from the start over up
+* arcs and a backward Dijkstra from the goal over down arcs. Both only ever climb in rank, so
+* each explores a few hundred vertices at most; the shortest path is the best vertex reached
+* by both. The path found is made of shortcuts and is unpacked into original graph edges. */
+public class ContractionHierarchySolver implements ShortestPathsSolver<Long> {
+
+    private SolverOutcome outcome;
+    private List<Long> solution;
+    private double solutionWeight;
+    private int numDequeued;
+    private double timeSpent;
+
+    private ContractionHierarchy ch;
+    private SearchSpace forward;
+    private SearchSpace backward;
+    private double best;
+    private int meeting;
+
+    public ContractionHierarchySolver(ContractionHierarchy ch, long start, long end, double timeout) {
+        this(ch, start, end, new SearchBudget(timeout), new SearchSpace(ch.graph().size()),
+                new SearchSpace(ch.graph().size()));
+    }
+
+    /* same as above, searching in the given spaces and giving up with TIMEOUT once BUDGET is exhausted. */
+    public ContractionHierarchySolver(ContractionHierarchy ch, long start, long end, SearchBudget budget,
+                                      SearchSpace forward, SearchSpace backward) {
+        this.ch = ch;
+        this.forward = forward;
+        this.backward = backward;
+        solution = new ArrayList<>();
+        Stopwatch sw = new Stopwatch();
+        CompactGraph graph = ch.graph();
+        int s = graph.index(start);
+        int t = graph.index(end);
+        outcome = SolverOutcome.UNSOLVABLE;
+        if (s == -1 || t == -1) {
+            return;
+        }
+
+        forward.reset(graph.size());
+        backward.reset(graph.size());
+        forward.setDistTo(s, 0.0, -1);
+        forward.push(s, 0.0);
+        backward.setDistTo(t, 0.0, -1);
+        backward.push(t, 0.0);
+        best = s == t ? 0.0 : Double.POSITIVE_INFINITY;
+        meeting = s == t ? s : -1;
+
+        /* unlike plain bidirectional Dijkstra, neither side may stop when the other does:
+         * each one runs until its smallest key can no longer improve the best path. */
+        while (true) {
+            skipStale(forward);
+            skipStale(backward);
+            boolean goForward = !forward.isHeapEmpty() && forward.peekPriority() < best;
+            boolean goBackward = !backward.isHeapEmpty() && backward.peekPriority() < best;
+            if (!goForward && !goBackward) {
+                break;
+            }
+            if (goForward && (!goBackward || forward.peekPriority() <= backward.peekPriority())) {
+                expandForward();
+            } else {
+                expandBackward();
+            }
+            if (budget.exhausted(numDequeued)) {
+                outcome = SolverOutcome.TIMEOUT;
+                timeSpent = sw.elapsedTime();
+                return;
+            }
+        }
+
+        if (meeting != -1) {
+            outcome = SolverOutcome.SOLVED;
+            solutionWeight = best;
+            /* collect the hierarchy path start .. meeting .. goal, then unpack every arc */
+            List<Integer> hops = new ArrayList<>();
+            for (int v = meeting; v != -1; v = forward.edgeTo(v)) {
+                hops.add(v);
+            }
+            Collections.reverse(hops);
+            for (int v = backward.edgeTo(meeting); v != -1; v = backward.edgeTo(v)) {
+                hops.add(v);
+            }
+            solution.add(start);
+            for (int i = 0; i + 1 < hops.size(); i += 1) {
+                ch.unpack(hops.get(i), hops.get(i + 1), solution);
+            }
+        }
+        timeSpent = sw.elapsedTime();
+    }
+
+    /* drop heap entries of vertices that were already settled on that side. */
+    private static void skipStale(SearchSpace space) {
+        while (!space.isHeapEmpty() && space.isSettled(space.peek())) {
+            space.pop();
+        }
+    }
+
+    private void expandForward() {
+        int cur = forward.pop();
+        forward.settle(cur);
+        numDequeued += 1;
+        double curDist = forward.distTo(cur);
+        /* stall on demand: if a higher vertex already offers a shorter way into cur,
+         * cur is not on a shortest up-path and its arcs need not be relaxed. */
+        for (int a = ch.downStart(cur); a < ch.downEnd(cur); a += 1) {
+            if (forward.distTo(ch.downSource(a)) + ch.downWeight(a) < curDist) {
+                return;
+            }
+        }
+        for (int a = ch.upStart(cur); a < ch.upEnd(cur); a += 1) {
+            int to = ch.upTarget(a);
+            double dist = curDist + ch.upWeight(a);
+            if (dist < forward.distTo(to)) {
+                forward.setDistTo(to, dist, cur);
+                forward.push(to, dist);
+                if (backward.isReached(to) && dist + backward.distTo(to) < best) {
+                    best = dist + backward.distTo(to);
+                    meeting = to;
+                }
+            }
+        }
+    }
+
+    private void expandBackward() {
+        int cur = backward.pop();
+        backward.settle(cur);
+        numDequeued += 1;
+        double curDist = backward.distTo(cur);
+        for (int a = ch.upStart(cur); a < ch.upEnd(cur); a += 1) {
+            if (backward.distTo(ch.upTarget(a)) + ch.upWeight(a) < curDist) {
+                return;
+            }
+        }
+        for (int a = ch.downStart(cur); a < ch.downEnd(cur); a += 1) {
+            int from = ch.downSource(a);
+            double dist = curDist + ch.downWeight(a);
+            if (dist < backward.distTo(from)) {
+                backward.setDistTo(from, dist, cur);
+                backward.push(from, dist);
+                if (forward.isReached(from) && dist + forward.distTo(from) < best) {
+                    best = dist + forward.distTo(from);
+                    meeting = from;
+                }
+            }
+        }
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<Long> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    @Override
+    public int numStatesExplored() {
+        return numDequeued;
+    }
+
+    @Override
+    public double explorationTime() {
+        return timeSpent;
+    }
+}
@@ -0,0 +1,215 @@
+package bearmaps.hw4.streetmap;
+
+import bearmaps.hw4.WeightedEdge;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, int-indexed snapshot of a StreetMapGraph.
+ * Vertices are numbered 0 .. size() - 1 and edges are kept in compressed sparse row
+ * form (one flat array per attribute), so a search can relax edges without touching
+ * boxed ids, edge objects or hash maps. Incoming edges are stored as well so that
+ * backward searches do not have to assume the graph is symmetric.
+ */
+public class CompactGraph {
+
+    private final long[] ids;
+    private final double[] lons;
+    private final double[] lats;
+    private final Map<Long, Integer> indexOf;
+
+    /* outgoing edges of v are the edge indices outStart[v] .. outStart[v + 1] - 1 */
+    private final int[] outStart;
+    private final int[] outTarget;
+    private final double[] outWeight;
+    private final String[] outName;
+
+    /* incoming edges of v are inStart[v] .. inStart[v + 1] - 1,
+     * inEdge maps each of them back to the matching outgoing edge index. */
+    private final int[] inStart;
+    private final int[] inSource;
+    private final int[] inEdge;
+
+    private final double maxWeight;
+    private final double meanWeight;
+
+    CompactGraph(StreetMapGraph g) {
+        List<Node> nodes = g.getNodes();
+        int n = nodes.size();
+        ids = new long[n];
+        for (int i = 0; i < n; i += 1) {
+            ids[i] = nodes.get(i).id();
+        }
+        Arrays.sort(ids); // deterministic numbering, independent of HashMap iteration order
+
+        lons = new double[n];
+        lats = new double[n];
+        indexOf = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i += 1) {
+            indexOf.put(ids[i], i);
+            lons[i] = g.lon(ids[i]);
+            lats[i] = g.lat(ids[i]);
+        }
+
+        /* first pass counts the edges of every vertex, second pass fills them in. */
+        outStart = new int[n + 1];
+        for (int v = 0; v < n; v += 1) {
+            outStart[v + 1] = outStart[v] + g.neighbors(ids[v]).size();
+        }
+        int m = outStart[n];
+        outTarget = new int[m];
+        outWeight = new double[m];
+        outName = new String[m];
+        int[] inDegree = new int[n];
+        double max = 0;
+        double total = 0;
+        for (int v = 0; v < n; v += 1) {
+            int e = outStart[v];
+            for (WeightedEdge<Long> edge : g.neighbors(ids[v])) {
+                int w = indexOf.get(edge.to());
+                outTarget[e] = w;
+                outWeight[e] = edge.weight();
+                outName[e] = edge.getName();
+                inDegree[w] += 1;
+                max = Math.max(max, edge.weight());
+                total += edge.weight();
+                e += 1;
+            }
+        }
+        maxWeight = max;
+        meanWeight = m == 0 ? 0 : total / m;
+
+        inStart = new int[n + 1];
+        for (int v = 0; v < n; v += 1) {
+            inStart[v + 1] = inStart[v] + inDegree[v];
+        }
+        inSource = new int[m];
+        inEdge = new int[m];
+        int[] next = Arrays.copyOf(inStart, n);
+        for (int v = 0; v < n; v += 1) {
+            for (int e = outStart[v]; e < outStart[v + 1]; e += 1) {
+                int slot = next[outTarget[e]];
+                inSource[slot] = v;
+                inEdge[slot] = e;
+                next[outTarget[e]] += 1;
+            }
+        }
+    }
+
+    /** Returns the number of vertices. */
+    public int size() {
+        return ids.length;
+    }
+
+    /** Returns the number of directed edges. */
+    public int edgeCount() {
+        return outTarget.length;
+    }
+
+    /** Returns the weight of the heaviest edge, 0 if there are no edges. */
+    public double maxWeight() {
+        return maxWeight;
+    }
+
+    /** Returns the mean edge weight, 0 if there are no edges. */
+    public double meanWeight() {
+        return meanWeight;
+    }
+
+    /** Returns the index of the vertex with the given OSM id, or -1 if there is none. */
+    public int index(long id) {
+        Integer i = indexOf.get(id);
+        return i == null ? -1 : i;
+    }
+
+    /** Returns the OSM id of vertex V. */
+    public long id(int v) {
+        return ids[v];
+    }
+
+    public double lon(int v) {
+        return lons[v];
+    }
+
+    public double lat(int v) {
+        return lats[v];
+    }
+
+    /** First outgoing edge index of V. */
+    public int outStart(int v) {
+        return outStart[v];
+    }
+
+    /** One past the last outgoing edge index of V. */
+    public int outEnd(int v) {
+        return outStart[v + 1];
+    }
+
+    /** Head vertex of edge E. */
+    public int target(int e) {
+        return outTarget[e];
+    }
+
+    public double weight(int e) {
+        return outWeight[e];
+    }
+
+    /** Way name of edge E, null if the way is unnamed. */
+    public String name(int e) {
+        return outName[e];
+    }
+
+    /** First incoming edge slot of V. */
+    public int inStart(int v) {
+        return inStart[v];
+    }
+
+    /** One past the last incoming edge slot of V. */
+    public int inEnd(int v) {
+        return inStart[v + 1];
+    }
+
+    /** Tail vertex of incoming slot I. */
+    public int source(int i) {
+        return inSource[i];
+    }
+
+    /** Outgoing edge index that incoming slot I refers to. */
+    public int inEdge(int i) {
+        return inEdge[i];
+    }
+
+    /** Returns the tail vertex of edge E. */
+    public int edgeSource(int e) {
+        int lo = 0;
+        int hi = ids.length - 1;
+        while (lo < hi) { // the last v with outStart[v] <= e
+            int mid = (lo + hi + 1) >>> 1;
+            if (outStart[mid] <= e) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /** Returns the lightest edge from V to W, or -1 if W is not adjacent to V. */
+    public int edge(int v, int w) {
+        int best = -1;
+        for (int e = outStart[v]; e < outStart[v + 1]; e += 1) {
+            if (outTarget[e] == w && (best == -1 || outWeight[e] < outWeight[best])) {
+                best = e;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the great-circle distance between vertices V and W. */
+    public double distance(int v, int w) {
+        return StreetMapGraph.distance(lons[v], lons[w], lats[v], lats[w]);
+    }
+}
@@ -0,0 +1,207 @@
+package bearmaps.hw4.streetmap;
+
+import bearmaps.proj2ab.IntArrayList;
+
+/**
+ * Uniform grid over the edges of a CompactGraph, for finding the road segments that cross
+ * a bounding box such as a map viewport.
+ * The bounding box of all vertices is cut into cells of equal size, roughly square on the
+ * ground, about two edges per cell. Every edge is listed in each cell its own bounding box
+ * overlaps; the lists are stored one after another in a single int array, like the edges
+ * of the graph. Of two opposite edges between the same vertices only one is indexed.
+ *
+ * A query visits the cells the box overlaps and clips every edge listed there against the
+ * box, so only edges that really cross it are returned. An edge listed in several of those
+ * cells is reported from the first of them only, which removes duplicates without any
+ * extra memory.
+ */
+public class EdgeGrid {
+
+    /** Target number of indexed edges per cell. */
+    private static final double EDGES_PER_CELL = 2;
+    /** Largest number of cells. */
+    private static final int MAX_CELLS = 1 << 22;
+
+    private final CompactGraph graph;
+    private final double minLon;
+    private final double minLat;
+    private final double cellLon;
+    private final double cellLat;
+    private final int cols;
+    private final int rows;
+    /* the tail vertex of every edge */
+    private final int[] tails;
+    /* the edges of cell c are cellEdges[cellStart[c]] .. cellEdges[cellStart[c + 1] - 1] */
+    private final int[] cellStart;
+    private final int[] cellEdges;
+
+    public EdgeGrid(CompactGraph graph) {
+        this.graph = graph;
+        int n = graph.size();
+        double loLon = Double.POSITIVE_INFINITY;
+        double loLat = Double.POSITIVE_INFINITY;
+        double hiLon = Double.NEGATIVE_INFINITY;
+        double hiLat = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < n; v += 1) {
+            loLon = Math.min(loLon, graph.lon(v));
+            loLat = Math.min(loLat, graph.lat(v));
+            hiLon = Math.max(hiLon, graph.lon(v));
+            hiLat = Math.max(hiLat, graph.lat(v));
+        }
+        if (n == 0) {
+            loLon = 0;
+            loLat = 0;
+            hiLon = 0;
+            hiLat = 0;
+        }
+        tails = new int[graph.edgeCount()];
+        int indexed = 0;
+        for (int v = 0; v < n; v += 1) {
+            for (int e = graph.outStart(v); e < graph.outEnd(v); e += 1) {
+                tails[e] = v;
+                if (isIndexed(v, e)) {
+                    indexed += 1;
+                }
+            }
+        }
+
+        /* cells of height cellLat degrees, and of the same width on the ground */
+        double scale = Math.max(Math.cos(Math.toRadians((loLat + hiLat) / 2)), 1e-6);
+        double width = (hiLon - loLon) * scale;
+        double height = hiLat - loLat;
+        int cells = (int) Math.min(Math.max(indexed / EDGES_PER_CELL, 1), MAX_CELLS);
+        double side = Math.sqrt(width * height / cells);
+        if (!(side > 0)) { // all vertices on a line or a point
+            side = Math.max(Math.max(width, height) / cells, 1e-9);
+        }
+        minLon = loLon;
+        minLat = loLat;
+        cellLat = side;
+        cellLon = side / scale;
+        cols = Math.max(1, Math.min((int) Math.ceil((hiLon - loLon) / cellLon), MAX_CELLS));
+        rows = Math.max(1, Math.min((int) Math.ceil(height / cellLat), MAX_CELLS / cols));
+
+        /* first pass counts the edges of every cell, second pass fills them in. */
+        cellStart = new int[cols * rows + 1];
+        place(cellStart, null);
+        for (int c = 0; c < cols * rows; c += 1) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellEdges = new int[cellStart[cols * rows]];
+        place(cellStart.clone(), cellEdges);
+    }
+
+    /* adds every indexed edge to the cells its bounding box overlaps: into EDGES at NEXT[cell],
+    * moving NEXT[cell] on, or if EDGES is null, only counting it in NEXT[cell + 1]. */
+    private void place(int[] next, int[] edges) {
+        for (int e = 0; e < tails.length; e += 1) {
+            int v = tails[e];
+            if (!isIndexed(v, e)) {
+                continue;
+            }
+            int w = graph.target(e);
+            int c0 = col(Math.min(graph.lon(v), graph.lon(w)));
+            int c1 = col(Math.max(graph.lon(v), graph.lon(w)));
+            int r0 = row(Math.min(graph.lat(v), graph.lat(w)));
+            int r1 = row(Math.max(graph.lat(v), graph.lat(w)));
+            for (int r = r0; r <= r1; r += 1) {
+                for (int c = c0; c <= c1; c += 1) {
+                    int cell = r * cols + c;
+                    if (edges == null) {
+                        next[cell + 1] += 1;
+                    } else {
+                        edges[next[cell]] = e;
+                        next[cell] += 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /* of two opposite edges, only the one from the smaller vertex is indexed. */
+    private boolean isIndexed(int v, int e) {
+        int w = graph.target(e);
+        return v < w || (v > w && graph.edge(w, v) == -1);
+    }
+
+    private int col(double lon) {
+        return clamp((int) Math.floor((lon - minLon) / cellLon), cols);
+    }
+
+    private int row(double lat) {
+        return clamp((int) Math.floor((lat - minLat) / cellLat), rows);
+    }
+
+    private static int clamp(int i, int n) {
+        return Math.max(0, Math.min(i, n - 1));
+    }
+
+    /** Returns the number of cells. */
+    public int cellCount() {
+        return cols * rows;
+    }
+
+    /**
+     * Appends to OUT the edges crossing the box [minLon, maxLon] x [minLat, maxLat], in no
+     * particular order. Only one of two opposite edges is returned.
+     * @return The number of edges appended.
+     */
+    public int query(double minLon, double minLat, double maxLon, double maxLat, IntArrayList out) {
+        int before = out.size();
+        if (minLon > maxLon || minLat > maxLat) {
+            return 0;
+        }
+        int c0 = col(minLon);
+        int c1 = col(maxLon);
+        int r0 = row(minLat);
+        int r1 = row(maxLat);
+        for (int r = r0; r <= r1; r += 1) {
+            for (int c = c0; c <= c1; c += 1) {
+                int cell = r * cols + c;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i += 1) {
+                    int e = cellEdges[i];
+                    int v = tails[e];
+                    int w = graph.target(e);
+                    // report the edge from the first cell it shares with the query only
+                    int firstCol = Math.max(c0, col(Math.min(graph.lon(v), graph.lon(w))));
+                    int firstRow = Math.max(r0, row(Math.min(graph.lat(v), graph.lat(w))));
+                    if (c == firstCol && r == firstRow
+                            && crosses(graph.lon(v), graph.lat(v), graph.lon(w), graph.lat(w),
+                                       minLon, minLat, maxLon, maxLat)) {
+                        out.add(e);
+                    }
+                }
+            }
+        }
+        return out.size() - before;
+    }
+
+    /* Liang-Barsky: true if the segment from (x0, y0) to (x1, y1) has a point in the box. */
+    private static boolean crosses(double x0, double y0, double x1, double y1,
+                                   double minX, double minY, double maxX, double maxY) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {x0 - minX, maxX - x0, y0 - minY, maxY - y0};
+        double t0 = 0;
+        double t1 = 1;
+        for (int i = 0; i < 4; i += 1) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return false; // parallel to this side and outside it
+                }
+            } else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) {
+                    t0 = Math.max(t0, t);
+                } else {
+                    t1 = Math.min(t1, t);
+                }
+                if (t0 > t1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -15,6 +15,7 @@ import java.util.*;
 public class StreetMapGraph implements AStarGraph<Long> {
     private Map<Long, Node> nodes = new HashMap<>();
     private Map<Long, Set<WeightedEdge<Long>>> neighbors = new HashMap<>();
+    private CompactGraph compact;
 
     private StreetMapGraph() {
     }
@@ -179,7 +180,7 @@ public class StreetMapGraph implements AStarGraph<Long> {
      *
      * @source Kevin Lowe & Antares Chen, and https://www.movable-type.co.uk/scripts/latlong.html
      **/
-    private double distance(double lonV, double lonW, double latV, double latW) {
+    static double distance(double lonV, double lonW, double latV, double latW) {
         double phi1 = Math.toRadians(latV);
         double phi2 = Math.toRadians(latW);
         double dphi = Math.toRadians(latW - latV);
@@ -227,6 +228,17 @@ public class StreetMapGraph implements AStarGraph<Long> {
         return nodes.get(v).name();
     }
 
+    /**
+     * Returns an int-indexed, array-backed snapshot of this graph for the
+     * primitive solvers. Built on first use and shared afterwards.
+     */
+    public synchronized CompactGraph compact() {
+        if (compact == null) {
+            compact = new CompactGraph(this);
+        }
+        return compact;
+    }
+
     protected List<Node> getNodes() {
         List<Node> nodes = new ArrayList<>();
         for(Map.Entry<Long, Node> nodeEntry: this.nodes.entrySet()){
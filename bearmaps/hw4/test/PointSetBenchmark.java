@@ -0,0 +1,102 @@
+package bearmaps.hw4.test;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.hw4.streetmap.StreetMapGraph;
+import bearmaps.proj2ab.FlatKdTree;
+import bearmaps.proj2ab.GridPointSet;
+import bearmaps.proj2ab.KdTree;
+import bearmaps.proj2ab.NaivePointSet;
+import bearmaps.proj2ab.Point;
+import bearmaps.proj2ab.PointSet;
+import bearmaps.proj2ab.WeirdPointSet;
+import bearmaps.proj2c.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Times the PointSet implementations on the nodes of the street map that have neighbors,
+ * the ones AugmentedStreetMapGraph.closest snaps to: every set is built, then asked for
+ * the nearest node to the same random goals. Like clicks on the map, which land on or next
+ * to a road, the goals are random nodes moved by up to GOAL_OFFSET in each coordinate;
+ * goals far from all nodes are the worst case of GridPointSet.
+ * GridPointSet is run with its default cell size and with every size given in miles.
+ * NaivePointSet and WeirdPointSet measure distances by haversine and the others on a
+ * local projection, so they may disagree with KdTree on near ties.
+ * Usage: PointSetBenchmark [osm file] [number of goals] [cell size in miles ...]
+ */
+public class PointSetBenchmark {
+
+    /** Largest distance of a goal from a node in either coordinate, in degrees. */
+    private static final double GOAL_OFFSET = 0.001;
+
+    public static void main(String[] args) {
+        String osm = args.length > 0 ? args[0] : Constants.OSM_DB_PATH;
+        int goals = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        CompactGraph graph = new StreetMapGraph(osm).compact();
+        List<Point> points = new ArrayList<>();
+        for (int v = 0; v < graph.size(); v += 1) {
+            if (graph.outEnd(v) > graph.outStart(v)) {
+                points.add(new Point(graph.lon(v), graph.lat(v)));
+            }
+        }
+
+        Random random = new Random(61);
+        double[] xs = new double[goals];
+        double[] ys = new double[goals];
+        for (int i = 0; i < goals; i += 1) {
+            Point p = points.get(random.nextInt(points.size()));
+            xs[i] = p.getX() + (random.nextDouble() - 0.5) * 2 * GOAL_OFFSET;
+            ys[i] = p.getY() + (random.nextDouble() - 0.5) * 2 * GOAL_OFFSET;
+        }
+
+        List<String> names = new ArrayList<>(List.of("NaivePointSet", "WeirdPointSet", "KdTree",
+            "KdTree.bulkLoad", "FlatKdTree", "GridPointSet"));
+        List<Function<List<Point>, PointSet>> sets = new ArrayList<>(List.of(NaivePointSet::new,
+            WeirdPointSet::new, KdTree::new, KdTree::bulkLoad,
+            p -> new FlatKdTree(p.toArray(new Point[0])), GridPointSet::new));
+        for (int i = 2; i < args.length; i += 1) {
+            double miles = Double.parseDouble(args[i]);
+            names.add("GridPointSet " + args[i] + " mi");
+            sets.add(p -> new GridPointSet(p, miles));
+        }
+
+        System.out.println(goals + " goals on " + points.size() + " nodes.");
+        Point[] expected = null; // the points found by KdTree in the first round
+        for (int round = 0; round < 2; round += 1) { // the first round warms up the JIT
+            for (int s = 0; s < sets.size(); s += 1) {
+                long start = System.nanoTime();
+                PointSet set = sets.get(s).apply(points);
+                double build = (System.nanoTime() - start) / 1e6;
+                Point[] found = new Point[goals];
+                start = System.nanoTime();
+                for (int i = 0; i < goals; i += 1) {
+                    found[i] = set.nearest(xs[i], ys[i]);
+                }
+                double query = (System.nanoTime() - start) / (double) goals;
+                if (expected == null && names.get(s).equals("KdTree")) {
+                    expected = found;
+                }
+                if (round == 1) {
+                    String cell = set instanceof GridPointSet
+                        ? String.format(" (cells of %.4f mi)", ((GridPointSet) set).cellMiles()) : "";
+                    System.out.printf("%-24s %10.1f ms build %10.1f ns/query %6d differ from KdTree%s%n",
+                            names.get(s), build, query, differences(found, expected), cell);
+                }
+            }
+        }
+    }
+
+    /* the number of goals where FOUND and EXPECTED have points at different places. */
+    private static int differences(Point[] found, Point[] expected) {
+        int count = 0;
+        for (int i = 0; i < found.length; i += 1) {
+            if (found[i].getX() != expected[i].getX() || found[i].getY() != expected[i].getY()) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+}
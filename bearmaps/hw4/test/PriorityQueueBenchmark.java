@@ -0,0 +1,106 @@
+package bearmaps.hw4.test;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.hw4.streetmap.StreetMapGraph;
+import bearmaps.proj2ab.ArrayHeapMinPQ;
+import bearmaps.proj2ab.ArraylistHeapMinPQ;
+import bearmaps.proj2ab.DoubleMapPQ;
+import bearmaps.proj2ab.ExtrinsicMinPQ;
+import bearmaps.proj2ab.IndexedHeapMinPQ;
+import bearmaps.proj2ab.PairingHeapMinPQ;
+import bearmaps.proj2ab.RadixHeapMinPQ;
+import bearmaps.proj2c.utils.Constants;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Times the ExtrinsicMinPQ implementations on the street map: the same random routes
+ * are solved by A* once with every queue, through the ExtrinsicMinPQ interface only,
+ * so the numbers include boxing where an implementation needs it.
+ * Usage: PriorityQueueBenchmark [osm file] [number of routes]
+ */
+public class PriorityQueueBenchmark {
+
+    public static void main(String[] args) {
+        String osm = args.length > 0 ? args[0] : Constants.OSM_DB_PATH;
+        int routes = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        CompactGraph graph = new StreetMapGraph(osm).compact();
+        int n = graph.size();
+
+        Random random = new Random(61);
+        int[][] pairs = new int[routes][];
+        for (int i = 0; i < routes; i += 1) {
+            pairs[i] = new int[]{random.nextInt(n), random.nextInt(n)};
+        }
+
+        String[] names = {"ArrayHeapMinPQ", "ArrayHeapUnchecked", "ArraylistHeapMinPQ", "DoubleMapPQ",
+            "IndexedHeapMinPQ", "RadixHeapMinPQ", "PairingHeapMinPQ"};
+        Supplier<?>[] queues = {ArrayHeapMinPQ::new, () -> new ArrayHeapMinPQ<Integer>(16, false),
+            ArraylistHeapMinPQ::new, DoubleMapPQ::new,
+            () -> new IndexedHeapMinPQ(n + 1), () -> new RadixHeapMinPQ(n + 1),
+            () -> new PairingHeapMinPQ(n + 1)};
+        System.out.println(routes + " routes on " + n + " vertices.");
+        for (int round = 0; round < 2; round += 1) { // the first round warms up the JIT
+            double checksum = Double.NaN;
+            for (int q = 0; q < queues.length; q += 1) {
+                long states = 0;
+                double total = 0;
+                long start = System.nanoTime();
+                for (int[] pair : pairs) {
+                    @SuppressWarnings("unchecked")
+                    ExtrinsicMinPQ<Integer> pq = (ExtrinsicMinPQ<Integer>) queues[q].get();
+                    double[] result = route(graph, pair[0], pair[1], pq);
+                    total += result[0];
+                    states += (long) result[1];
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                if (!Double.isNaN(checksum) && Math.abs(total - checksum) > 1e-6) {
+                    System.out.println("  " + names[q] + " found different routes!");
+                }
+                checksum = total;
+                if (round == 1) {
+                    System.out.printf("%-20s %8.3f s %12d states %10.1f ns/state%n",
+                            names[q], seconds, states, seconds * 1e9 / states);
+                }
+            }
+        }
+    }
+
+    /* A* from S to T using PQ. Returns {route length or 0, dequeued states}. Item n, the
+    * number of vertices, stays in the queue with infinite priority so that the queue is
+    * never emptied (ArrayHeapMinPQ cannot remove its last item). */
+    private static double[] route(CompactGraph graph, int s, int t, ExtrinsicMinPQ<Integer> pq) {
+        int n = graph.size();
+        double[] distTo = new double[n];
+        boolean[] settled = new boolean[n];
+        Arrays.fill(distTo, Double.POSITIVE_INFINITY);
+        pq.add(n, Double.POSITIVE_INFINITY);
+        distTo[s] = 0;
+        pq.add(s, graph.distance(s, t));
+        int states = 0;
+        while (pq.size() > 1) {
+            int v = pq.removeSmallest();
+            if (v == t) {
+                return new double[]{distTo[t], states};
+            }
+            settled[v] = true;
+            states += 1;
+            for (int e = graph.outStart(v); e < graph.outEnd(v); e += 1) {
+                int w = graph.target(e);
+                double dist = distTo[v] + graph.weight(e);
+                if (settled[w] || dist >= distTo[w]) {
+                    continue;
+                }
+                distTo[w] = dist;
+                if (pq.contains(w)) {
+                    pq.changePriority(w, dist + graph.distance(w, t));
+                } else {
+                    pq.add(w, dist + graph.distance(w, t));
+                }
+            }
+        }
+        return new double[]{0, states};
+    }
+}
@@ -1,18 +1,29 @@
 package bearmaps.proj2ab;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
  * Array-based implementation of the ExtrinsicMinPQ
  *
+ * swim and sink are loops that carry a hole up or down the heap and write the moving node
+ * once where it stops, instead of swapping at every level. A heap created with checked set
+ * to false also skips validating the index it starts from, which only catches bugs in this
+ * class; it then allows removing the last item, which a checked heap reports as an error.
  */
 public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
 
     private Node[] minPQ;
     private int size;
     private HashMap<T, Integer> map; // record a mapping from T item to index
-    private static final double RATIO = 0.25;
+    private int minCapacity; // the array never shrinks below this on its own
+    private final boolean checked; // validate indices passed to swim and sink
+    /* the array doubles when it is full and halves when less than an eighth of it is used,
+    * so it is at most a quarter full right after shrinking and a search whose heap size
+    * goes up and down around a power of two does not grow and shrink it over and over. */
+    private static final double SHRINK_RATIO = 0.125;
     private static final int INIT_CAPACITY = 16;
 
     /* class that is nested and non-static, it will be a bit more complex if we set it to an inner class. */
@@ -66,10 +77,32 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
 
     /* an empty constructor of ArrayHeapMinPQ */
     public ArrayHeapMinPQ() {
-        minPQ = new ArrayHeapMinPQ.Node[INIT_CAPACITY];
+        this(INIT_CAPACITY - 1); // slot 0 is never used
+    }
+
+    /* an empty heap with room for CAPACITY items, which it keeps however many are removed.
+    * A heap reused for many searches can be given the size of the largest one. */
+    public ArrayHeapMinPQ(int capacity) {
+        this(capacity, true);
+    }
+
+    /* an empty heap with room for CAPACITY items, validating swim and sink if CHECKED. */
+    public ArrayHeapMinPQ(int capacity, boolean checked) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        minCapacity = Math.max(capacity + 1, INIT_CAPACITY);
+        minPQ = new ArrayHeapMinPQ.Node[minCapacity];
         minPQ[0] = null;
         size = 0;
-        map = new HashMap<T, Integer>(INIT_CAPACITY);
+        map = new HashMap<T, Integer>(minCapacity);
+        this.checked = checked;
+    }
+
+    /* a heap of the given items and priorities, built bottom-up in linear time. */
+    public ArrayHeapMinPQ(List<? extends T> items, double[] priorities) {
+        this();
+        addAll(items, priorities);
     }
 
     public int size() {
@@ -102,39 +135,31 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
         return minPQ[index];
     }
 
-    /* swap nodes at two given indices */
-    private void swap(int i, int j) {
-        Node inode = getNode(i);
-        Node jnode = getNode(j);
-        minPQ[i] = jnode;
-        minPQ[j] = inode;
-        map.replace(inode.getItem(), j);
-        map.replace(jnode.getItem(), i);
+    /* resize the minPQ with given capacity, which must be larger than size. */
+    private void resize(int capacity) {
+        this.minPQ = Arrays.copyOf(this.minPQ, capacity);
     }
 
-    /* return index of the Node with smaller priority of its own.
-    * not both nodes are null. */
-    private int getMinIndex(int i, int j) {
-        Node inode = getNode(i);
-        Node jnode = getNode(j);
-        if (inode == null) {
-            return j;
-        } else if (jnode == null) {
-            return i;
-        } else if (inode.compareTo(jnode) < 0) {
-            return i;
-        } else {
-            return j;
-        }
+    /* length of the array, slot 0 included. */
+    int capacity() {
+        return minPQ.length;
     }
 
-    /* resize the minPQ with given capacity */
-    private void resize(int capacity) {
-        Node[] tmp = new ArrayHeapMinPQ.Node[capacity];
-        for (int i = 1; i < this.minPQ.length; i += 1) {
-            tmp[i] = this.minPQ[i];
+    /* shrink the array and the map to the current number of items. */
+    public void trimToSize() {
+        if (minPQ.length > size + 1) {
+            resize(size + 1);
         }
-        this.minPQ = tmp;
+        minCapacity = Math.min(minCapacity, INIT_CAPACITY);
+        map = new HashMap<T, Integer>(map);
+    }
+
+    /* remove all items but keep the array and the map, so that refilling the heap
+    * up to its previous size allocates nothing but the nodes. */
+    public void clear() {
+        Arrays.fill(minPQ, 1, size + 1, null);
+        size = 0;
+        map.clear();
     }
 
     /* throw exceptions if the given argument index is invalid for swim/sink operations. */
@@ -148,46 +173,53 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
     }
 
     /* Insertion step 2
-    * swim: swim up inserted node until it is larger than its parent node,
+    * swim: swim up the node at given index until it is larger than its parent node,
     * or until it is the new root. */
     private void swim(int i) {
-        validateSinkSwimArg(i);
-        int parent = parentIndex(i);
-        /* as long as the inserted node is smaller than its parent,
-        * it should be swam up to its parent's position. */
-        if (parent >= 1 && getMinIndex(i, parent) == i) {
-            swap(i, parent);
-            swim(parent); // recursion
+        if (checked) {
+            validateSinkSwimArg(i);
         }
+        Node node = minPQ[i];
+        /* as long as the node is smaller than the parent of the hole,
+        * the parent moves down into the hole. */
+        while (i > 1) {
+            int parent = parentIndex(i);
+            if (node.compareTo(minPQ[parent]) >= 0) {
+                break;
+            }
+            place(i, minPQ[parent]);
+            i = parent;
+        }
+        place(i, node);
     }
 
     /* DeleteMin step 2
     * sink: sink down the node at given index until it is smaller than both of its children. */
     private void sink(int i) {
-        validateSinkSwimArg(i);
-        int leftIndex = leftIndex(i);
-        int rightIndex = rightIndex(i);
-        if (leftIndex > size) {
-            return;
+        if (checked) {
+            validateSinkSwimArg(i);
         }
-        // when left child node is smaller than the node at given index
-        if (getMinIndex(i, leftIndex) == leftIndex) {
-            if (rightIndex <= size && getMinIndex(leftIndex, rightIndex) == rightIndex) {
-                //swap with the right child
-                swap(i, rightIndex);
-                sink(rightIndex);
-            } else {
-                // swap with the left child
-                swap(i, leftIndex);
-                sink(leftIndex);
+        Node node = minPQ[i];
+        /* as long as the smaller child of the hole is smaller than the node,
+        * that child moves up into the hole. */
+        while (leftIndex(i) <= size) {
+            int child = leftIndex(i);
+            if (child < size && minPQ[child + 1].compareTo(minPQ[child]) < 0) {
+                child += 1;
             }
-        } else { // if node at given index is smaller than its left child, we check its right child
-            if (rightIndex <= size && getMinIndex(i, rightIndex) == rightIndex) {
-                swap(i, rightIndex);
-                sink(rightIndex);
+            if (node.compareTo(minPQ[child]) <= 0) {
+                break;
             }
-            // if node at given index is also smaller than its right child, we do nothing
+            place(i, minPQ[child]);
+            i = child;
         }
+        place(i, node);
+    }
+
+    /* put NODE at the given index and record it in the map. */
+    private void place(int i, Node node) {
+        minPQ[i] = node;
+        map.put(node.getItem(), i);
     }
 
     /* insert an item with given priority value.
@@ -207,8 +239,55 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
         int insertedIndex = size + 1; // initially add new item into the end of the heap
         minPQ[insertedIndex] = inserted;
         size += 1;
-        map.put(inserted.getItem(), insertedIndex); // update the map!
-        swim(insertedIndex);
+        swim(insertedIndex); // records the final index in the map
+    }
+
+    /* insert all items with the priorities at the same indices.
+    * When at least as many items are added as the heap holds, they are appended as they are
+    * and the whole heap is rebuilt bottom-up, which takes linear time instead of n log n.
+    * The array and the map are sized once up front.
+    * If an item already exists, the items before it are added and an exception is thrown. */
+    @Override
+    public void addAll(List<? extends T> items, double[] priorities) {
+        int n = priorities.length;
+        if (items.size() != n) {
+            throw new IllegalArgumentException("Items and priorities differ in length.");
+        }
+        if (n == 0 || n < size) {
+            ExtrinsicMinPQ.super.addAll(items, priorities);
+            return;
+        }
+
+        int capacity = minPQ.length;
+        while (capacity <= size + n + 1) {
+            capacity *= 2;
+        }
+        if (capacity != minPQ.length) {
+            resize(capacity);
+        }
+        if (size == 0) {
+            map = new HashMap<T, Integer>((int) (n / 0.75f) + 1);
+        }
+        try {
+            for (int i = 0; i < n; i += 1) {
+                T item = items.get(i);
+                if (contains(item)) {
+                    throw new IllegalArgumentException("Item already exists.");
+                }
+                size += 1;
+                minPQ[size] = new Node(item, priorities[i]);
+                map.put(item, size);
+            }
+        } finally {
+            heapify();
+        }
+    }
+
+    /* restores the heap order bottom-up by sinking every node that has children. */
+    private void heapify() {
+        for (int i = parentIndex(size); i >= 1; i -= 1) {
+            sink(i);
+        }
     }
 
     /* return true if the heap is empty. */
@@ -236,15 +315,20 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
     @Override
     public T removeSmallest() {
         T smallest = getSmallest();
-        swap(1, size); // swap the smallest node with the last node in the minPQ
-        // smallest one should be removed, after swapping, smallest item is at the end
+        // the last node in the minPQ takes the place of the smallest one
+        Node last = minPQ[size];
         minPQ[size] = null;
         size -= 1;
         map.remove(smallest);
-        sink(1); // sink the newly swapped node at index 1
+        if (size > 0) {
+            minPQ[1] = last;
+            sink(1); // sink the moved node at index 1
+        } else if (checked) {
+            validateSinkSwimArg(1); // the heap is empty, nothing left to sink
+        }
 
         // consider need to resize
-        if ((double) size / minPQ.length < RATIO && minPQ.length > INIT_CAPACITY) {
+        if ((double) size / minPQ.length < SHRINK_RATIO && minPQ.length / 2 >= minCapacity) {
             resize(minPQ.length / 2);
         }
 
@@ -254,12 +338,12 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
     /* set the priority of the given item to the given value. */
     @Override
     public void changePriority(T item, double priority) {
-        if (! map.containsKey(item)) {
+        // get the index of the Node with given item
+        Integer index = map.get(item);
+        if (index == null) {
             throw new NoSuchElementException("Item does not exist.");
         }
-        // get the index of the Node with given item
-        int index = map.get(item);
-        Node target = getNode(index);
+        Node target = minPQ[index];
         double oldPriority = target.getPriority();
         target.setPriority(priority);
         if (oldPriority < priority) {
@@ -6,6 +6,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import static org.junit.Assert.*;
@@ -147,6 +150,28 @@ public class ArrayHeapMinPQTest {
         pq.removeSmallest(); // all nodes were removed, cannot finish the sink() operation of the last removeSmallest() call
     }
 
+    @Test
+    public void testUncheckedHeap() {
+        ArrayHeapMinPQ<Integer> pq = new ArrayHeapMinPQ<>(16, false);
+        ArraylistHeapMinPQ<Integer> listPQ = new ArraylistHeapMinPQ<>();
+        for (int i = 0; i < 1000; i += 1) {
+            double priority = StdRandom.uniform() * 1000;
+            pq.add(i, priority);
+            listPQ.add(i, priority);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            double priority = StdRandom.uniform() * 1000;
+            pq.changePriority(i, priority);
+            listPQ.changePriority(i, priority);
+        }
+        while (listPQ.size() > 0) {
+            assertEquals(listPQ.removeSmallest(), pq.removeSmallest());
+        }
+        // an unchecked heap can remove its last item
+        assertEquals(0, pq.size());
+        assertFalse(pq.contains(5));
+    }
+
     @Test
     public void testRemoveFromNull() {
         ex.expect(NoSuchElementException.class);
@@ -243,6 +268,328 @@ public class ArrayHeapMinPQTest {
         pq.changePriority(14, 3);
     }
 
+    @Test
+    public void testIndexedHeap() {
+        IndexedHeapMinPQ pq = new IndexedHeapMinPQ(4);
+        assertEquals(0, pq.size());
+        assertTrue(pq.isEmpty());
+        pq.add(11, 1);
+        pq.add(12, 5);
+        pq.add(13, 2);
+        pq.add(14, 11);
+        pq.add(15, 0);
+        assertEquals(5, pq.size());
+        assertEquals(15, pq.smallest());
+        assertEquals(0, pq.smallestPriority(), 0);
+        pq.changePriority(11, -1);
+        assertEquals(11, pq.popSmallest());
+        assertFalse(pq.contains(11));
+        pq.changePriority(15, 12);
+        assertEquals(13, pq.popSmallest());
+        assertEquals(12, pq.popSmallest());
+        assertEquals(14, pq.popSmallest());
+        assertEquals(15, pq.popSmallest());
+        assertTrue(pq.isEmpty());
+
+        /* the boxed ExtrinsicMinPQ methods */
+        ExtrinsicMinPQ<Integer> boxed = pq;
+        boxed.add(3, 3);
+        boxed.add(1, 4);
+        assertTrue(boxed.contains(1));
+        boxed.changePriority(1, 2);
+        assertTrue(boxed.getSmallest() == 1);
+        assertTrue(boxed.removeSmallest() == 1);
+        assertTrue(boxed.removeSmallest() == 3);
+    }
+
+    @Test
+    public void testIndexedHeapClear() {
+        IndexedHeapMinPQ pq = new IndexedHeapMinPQ();
+        for (int i = 0; i < 100; i += 1) {
+            pq.add(i, 100 - i);
+        }
+        pq.clear();
+        assertEquals(0, pq.size());
+        assertFalse(pq.contains(99));
+        pq.add(99, 1);
+        assertEquals(99, pq.smallest());
+    }
+
+    @Test
+    public void testIndexedHeapMatchesDoubleMapPQ() {
+        IndexedHeapMinPQ pq = new IndexedHeapMinPQ();
+        DoubleMapPQ<Integer> doublePQ = new DoubleMapPQ<>();
+        for (int i = 0; i < 1000; i += 1) {
+            double priority = StdRandom.uniform() * 1000;
+            pq.add(i, priority);
+            doublePQ.add(i, priority);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            double priority = StdRandom.uniform() * 1000;
+            pq.changePriority(i, priority);
+            doublePQ.changePriority(i, priority);
+        }
+        while (pq.size() > 0) {
+            assertEquals(doublePQ.removeSmallest().intValue(), pq.popSmallest());
+        }
+    }
+
+    @Test
+    public void testAddDuplicatedItemToIndexedHeap() {
+        ex.expect(IllegalArgumentException.class);
+        ex.expectMessage("Item already exists.");
+
+        IndexedHeapMinPQ pq = new IndexedHeapMinPQ();
+        pq.add(11, 1);
+        pq.add(12, 5);
+        pq.add(11, 3);
+    }
+
+    @Test
+    public void testRemoveFromNullIndexedHeap() {
+        ex.expect(NoSuchElementException.class);
+        ex.expectMessage("No such items exist.");
+
+        IndexedHeapMinPQ pq = new IndexedHeapMinPQ();
+        pq.popSmallest();
+    }
+
+    @Test
+    public void testChangePriorityDoesNotExistFromIndexedHeap() {
+        ex.expect(NoSuchElementException.class);
+        ex.expectMessage("Item does not exist.");
+
+        IndexedHeapMinPQ pq = new IndexedHeapMinPQ();
+        pq.add(11, 1);
+        pq.changePriority(14, 3);
+    }
+
+    @Test
+    public void testRadixHeap() {
+        RadixHeapMinPQ pq = new RadixHeapMinPQ(4);
+        pq.add(11, 1);
+        pq.add(12, 5);
+        pq.add(13, 2);
+        pq.add(14, 11);
+        pq.add(15, 0);
+        assertEquals(5, pq.size());
+        assertEquals(15, pq.popSmallest());
+        pq.changePriority(14, 1.5);
+        pq.changePriority(12, 0.5); // may still go below a smallest() that was not removed
+        assertEquals(12, pq.smallest());
+        assertEquals(12, pq.popSmallest());
+        assertEquals(11, pq.popSmallest());
+        assertEquals(14, pq.popSmallest());
+        assertEquals(1, pq.size());
+        assertTrue(pq.contains(13));
+        assertFalse(pq.contains(14));
+        assertEquals(13, pq.popSmallest());
+        assertTrue(pq.isEmpty());
+    }
+
+    @Test
+    public void testRadixHeapMatchesIndexedHeap() {
+        RadixHeapMinPQ radix = new RadixHeapMinPQ();
+        IndexedHeapMinPQ heap = new IndexedHeapMinPQ();
+        double last = 0;
+        for (int i = 0; i < 5000; i += 1) {
+            /* like Dijkstra: new priorities are never below the last removed one */
+            int item = StdRandom.uniform(1000);
+            double priority = last + StdRandom.uniform() * 10;
+            if (!heap.contains(item)) {
+                radix.add(item, priority);
+                heap.add(item, priority);
+            } else if (priority < heap.priority(item)) {
+                radix.changePriority(item, priority);
+                heap.changePriority(item, priority);
+            }
+            if (StdRandom.uniform(3) == 0) {
+                last = heap.smallestPriority();
+                assertEquals(heap.popSmallest(), radix.popSmallest());
+            }
+        }
+        while (!heap.isEmpty()) {
+            assertEquals(heap.popSmallest(), radix.popSmallest());
+        }
+        assertTrue(radix.isEmpty());
+    }
+
+    @Test
+    public void testRadixHeapRejectsSmallerPriority() {
+        ex.expect(IllegalArgumentException.class);
+        ex.expectMessage("Priority is smaller than the last removed priority.");
+
+        RadixHeapMinPQ pq = new RadixHeapMinPQ();
+        pq.add(1, 5);
+        pq.add(2, 7);
+        pq.removeSmallest();
+        pq.add(3, 4);
+    }
+
+    @Test
+    public void testPairingHeap() {
+        PairingHeapMinPQ pq = new PairingHeapMinPQ(4);
+        pq.add(11, 4);
+        pq.add(12, 2);
+        pq.add(13, 3);
+        pq.add(14, 5);
+        pq.add(15, 6);
+        assertEquals(12, pq.smallest());
+        pq.changePriority(15, 1);
+        assertEquals(15, pq.smallest());
+        pq.changePriority(15, 7);
+        assertEquals(12, pq.popSmallest());
+        pq.changePriority(14, 0);
+        assertEquals(0, pq.smallestPriority(), 0);
+        assertEquals(14, pq.popSmallest());
+        assertEquals(13, pq.popSmallest());
+        assertEquals(11, pq.popSmallest());
+        assertEquals(7, pq.priority(15), 0);
+        pq.clear();
+        assertTrue(pq.isEmpty());
+        assertFalse(pq.contains(15));
+        pq.add(15, 1);
+        assertEquals(15, pq.popSmallest());
+    }
+
+    @Test
+    public void testPairingHeapMatchesIndexedHeap() {
+        PairingHeapMinPQ pairing = new PairingHeapMinPQ();
+        IndexedHeapMinPQ heap = new IndexedHeapMinPQ();
+        for (int i = 0; i < 20000; i += 1) {
+            int item = StdRandom.uniform(1000);
+            double priority = StdRandom.uniform() * 1000;
+            if (!heap.contains(item)) {
+                pairing.add(item, priority);
+                heap.add(item, priority);
+            } else {
+                pairing.changePriority(item, priority); // raises as well as lowers
+                heap.changePriority(item, priority);
+            }
+            assertEquals(heap.size(), pairing.size());
+            if (StdRandom.uniform(3) == 0) {
+                assertEquals(heap.smallestPriority(), pairing.smallestPriority(), 0);
+                assertEquals(heap.popSmallest(), pairing.popSmallest());
+            }
+        }
+        while (!heap.isEmpty()) {
+            assertEquals(heap.popSmallest(), pairing.popSmallest());
+        }
+        assertTrue(pairing.isEmpty());
+    }
+
+    @Test
+    public void testAddAll() {
+        List<Integer> items = new ArrayList<>();
+        double[] priorities = new double[1000];
+        for (int i = 0; i < priorities.length; i += 1) {
+            items.add(i);
+            priorities[i] = StdRandom.uniform() * 1000;
+        }
+        ArrayHeapMinPQ<Integer> pq = new ArrayHeapMinPQ<>(items, priorities);
+        ArraylistHeapMinPQ<Integer> listPQ = new ArraylistHeapMinPQ<>();
+        listPQ.addAll(items, priorities);
+        assertEquals(1000, pq.size());
+        assertEquals(1000, listPQ.size());
+        assertTrue(pq.contains(999));
+        pq.changePriority(999, -1);
+        listPQ.changePriority(999, -1);
+        while (pq.size() > 1) {
+            assertEquals(listPQ.removeSmallest(), pq.removeSmallest());
+        }
+
+        int last = pq.getSmallest();
+
+        /* at least as many items as the heap holds are appended and heapified */
+        pq.addAll(Arrays.asList(2000, 2001), new double[]{-5, 5000});
+        assertTrue(pq.getSmallest() == 2000);
+        assertEquals(3, pq.size());
+
+        /* fewer items than the heap holds go through add */
+        pq.addAll(Arrays.asList(3000, 3001), new double[]{-10, 2500});
+        assertTrue(pq.getSmallest() == 3000);
+        assertEquals(5, pq.size());
+        for (int expected : new int[]{3000, 2000, last, 3001}) {
+            assertEquals(expected, (int) pq.removeSmallest());
+        }
+        assertTrue(pq.getSmallest() == 2001);
+    }
+
+    @Test
+    public void testAddAllDuplicatedItem() {
+        ex.expect(IllegalArgumentException.class);
+        ex.expectMessage("Item already exists.");
+
+        ArrayHeapMinPQ<Integer> pq = new ArrayHeapMinPQ<>();
+        pq.add(12, 5);
+        pq.addAll(Arrays.asList(11, 12, 13), new double[]{1, 2, 3});
+    }
+
+    @Test
+    public void testCapacityPolicy() {
+        ArrayHeapMinPQ<Integer> pq = new ArrayHeapMinPQ<>();
+        assertEquals(16, pq.capacity());
+        for (int i = 0; i < 100; i += 1) {
+            pq.add(i, i);
+        }
+        assertEquals(128, pq.capacity());
+        // no shrink while more than an eighth is used
+        while (pq.size() > 17) {
+            pq.removeSmallest();
+        }
+        assertEquals(128, pq.capacity());
+        // going back up to 100 items allocates no array
+        for (int i = 0; i < 83; i += 1) {
+            pq.add(1000 + i, i);
+        }
+        assertEquals(128, pq.capacity());
+        while (pq.size() > 1) {
+            pq.removeSmallest();
+        }
+        assertEquals(16, pq.capacity());
+    }
+
+    @Test
+    public void testClearKeepsCapacity() {
+        ArrayHeapMinPQ<String> pq = new ArrayHeapMinPQ<>(1000);
+        assertEquals(1001, pq.capacity());
+        for (int round = 0; round < 3; round += 1) {
+            for (int i = 0; i < 1000; i += 1) {
+                pq.add("item" + i, (i * 7919) % 1000);
+            }
+            assertEquals(1001, pq.capacity());
+            assertEquals("item0", pq.removeSmallest());
+            assertEquals("item679", pq.getSmallest());
+            pq.clear();
+            assertEquals(0, pq.size());
+            assertFalse(pq.contains("item5"));
+        }
+        // the constructor capacity is kept however many items are removed
+        for (int i = 0; i < 1000; i += 1) {
+            pq.add("item" + i, i);
+        }
+        while (pq.size() > 1) {
+            pq.removeSmallest();
+        }
+        assertEquals(1001, pq.capacity());
+    }
+
+    @Test
+    public void testTrimToSize() {
+        ArrayHeapMinPQ<Integer> pq = new ArrayHeapMinPQ<>(1000);
+        for (int i = 0; i < 5; i += 1) {
+            pq.add(i, 5 - i);
+        }
+        pq.trimToSize();
+        assertEquals(6, pq.capacity());
+        pq.add(5, 0);
+        assertEquals(12, pq.capacity());
+        for (int i = 5; i >= 1; i -= 1) {
+            assertEquals(i, (int) pq.removeSmallest());
+        }
+        assertEquals(0, (int) pq.getSmallest());
+    }
+
     /* test the runtime */
     public static void main(String[] args) {
         Stopwatch sw = new Stopwatch();
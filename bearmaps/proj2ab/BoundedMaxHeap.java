@@ -0,0 +1,86 @@
+package bearmaps.proj2ab;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/* the CAPACITY items with the smallest keys offered so far, kept in a binary max-heap so
+* that the largest of them is at the root and is the one replaced by a smaller offer.
+* Used by the k-nearest searches, with squared distances as keys. */
+class BoundedMaxHeap<T> {
+
+    private final Object[] items;
+    private final double[] keys;
+    private int size;
+
+    BoundedMaxHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative.");
+        }
+        items = new Object[capacity];
+        keys = new double[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == items.length;
+    }
+
+    /* the key an offer has to be below to be kept: infinity while the heap is not full,
+    * then the largest key kept. */
+    double bound() {
+        if (!isFull()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return size > 0 ? keys[0] : Double.NEGATIVE_INFINITY;
+    }
+
+    /* keeps ITEM if fewer than CAPACITY items are kept or KEY is below the largest key. */
+    void offer(T item, double key) {
+        if (size < items.length) {
+            int i = size;
+            size += 1;
+            while (i > 0 && keys[(i - 1) / 2] < key) { // move the hole up
+                items[i] = items[(i - 1) / 2];
+                keys[i] = keys[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            items[i] = item;
+            keys[i] = key;
+        } else if (size > 0 && key < keys[0]) {
+            int i = 0;
+            while (2 * i + 1 < size) { // move the hole down
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] > keys[child]) {
+                    child += 1;
+                }
+                if (keys[child] <= key) {
+                    break;
+                }
+                items[i] = items[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            items[i] = item;
+            keys[i] = key;
+        }
+    }
+
+    /* the kept items, smallest key first. */
+    @SuppressWarnings("unchecked")
+    List<T> toSortedList() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i += 1) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(keys[a], keys[b]));
+        List<T> result = new ArrayList<>(size);
+        for (int i : order) {
+            result.add((T) items[i]);
+        }
+        return result;
+    }
+}
@@ -1,4 +1,7 @@
 package bearmaps.proj2ab;
+
+import java.util.List;
+
 /**
  * Priority queue where objects have a priority that is provided
  * extrinsically, i.e. are are supplied as an argument during insertion
@@ -17,4 +20,13 @@ public interface ExtrinsicMinPQ<T> {
     void changePriority(T item, double priority);
     /* Returns the number of items in the PQ. */
     int size();
+    /* Inserts every item of ITEMS, with the priority at the same index of PRIORITIES. */
+    default void addAll(List<? extends T> items, double[] priorities) {
+        if (items.size() != priorities.length) {
+            throw new IllegalArgumentException("Items and priorities differ in length.");
+        }
+        for (int i = 0; i < priorities.length; i += 1) {
+            add(items.get(i), priorities[i]);
+        }
+    }
 }
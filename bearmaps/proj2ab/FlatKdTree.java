@@ -0,0 +1,385 @@
+package bearmaps.proj2ab;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Implicit k-d tree over points given as primitive coordinates, each with a long id.
+ * The tree is complete and stored in heap order in parallel arrays: the children of slot i
+ * are slots 2i + 1 and 2i + 2, and slot i splits on x at even depths and on y at odd ones.
+ * Every slot holds the median of its subtree, so the depth is log2(n) + 1 at most, and
+ * there are no node objects or pointers to follow.
+ *
+ * nearest search walks the tree without recursion or a stack: knowing the slot it came
+ * from tells it whether it is going down, coming back from the near child or coming back
+ * from the far one. It only crosses a split when the split is closer than the best point so
+ * far, and nearestIndex and nearestId allocate nothing. Distances are compared squared, on
+ * the same equirectangular projection as KdTree.nearest, taking x as the longitude.
+ */
+public class FlatKdTree implements RangePointSet {
+
+    /* subtrees with fewer points are built without forking. */
+    private static final int FORK_THRESHOLD = 1 << 13;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final long[] ids;
+
+    /* a tree of the points (XS[i], YS[i]) with ids IDS[i]; the arrays are not kept. */
+    public FlatKdTree(double[] xs, double[] ys, long[] ids) {
+        int n = xs.length;
+        if (ys.length != n || ids.length != n) {
+            throw new IllegalArgumentException("Coordinates and ids differ in length.");
+        }
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.ids = new long[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            order[i] = i;
+        }
+        ForkJoinPool.commonPool().invoke(new Build(xs, ys, ids, order, 0, n, 0));
+    }
+
+    /* a tree of POINTS, whose ids are their indices in the array. */
+    public FlatKdTree(Point[] points) {
+        this(xs(points), ys(points), indices(points.length));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /* x coordinate of slot I. */
+    public double x(int i) {
+        return xs[i];
+    }
+
+    /* y coordinate of slot I. */
+    public double y(int i) {
+        return ys[i];
+    }
+
+    /* id of slot I. */
+    public long id(int i) {
+        return ids[i];
+    }
+
+    /* returns the id of the point nearest to (x, y). */
+    public long nearestId(double x, double y) {
+        return ids[nearestIndex(x, y)];
+    }
+
+    @Override
+    public Point nearest(double x, double y) {
+        int i = nearestIndex(x, y);
+        return new Point(xs[i], ys[i]);
+    }
+
+    /* returns the slot of the point nearest to (x, y). */
+    public int nearestIndex(double x, double y) {
+        int n = ids.length;
+        if (n == 0) {
+            throw new NoSuchElementException("The tree is empty.");
+        }
+        double scale = Math.cos(Math.toRadians(y)); // see KdTree.nearest
+        int best = 0;
+        double bestDist = Double.POSITIVE_INFINITY;
+        int cur = 0;
+        int prev = -1; // the slot we came from; smaller than cur when going down
+        while (true) {
+            boolean xBased = isXBased(cur);
+            double diff = xBased ? x - xs[cur] : y - ys[cur];
+            double lineDist = xBased ? diff * diff * scale * scale : diff * diff;
+            int left = 2 * cur + 1;
+            int near = diff < 0 ? left : left + 1;
+            int far = diff < 0 ? left + 1 : left;
+            int next = -1; // -1 to go back up
+            if (prev < cur) { // first visit
+                double dx = (x - xs[cur]) * scale;
+                double dy = y - ys[cur];
+                double dist = dx * dx + dy * dy;
+                if (dist < bestDist) {
+                    best = cur;
+                    bestDist = dist;
+                }
+                if (near < n) {
+                    next = near;
+                } else if (far < n && lineDist < bestDist) {
+                    next = far;
+                }
+            } else if (prev == near && far < n && lineDist < bestDist) {
+                next = far;
+            }
+            prev = cur;
+            if (next != -1) {
+                cur = next;
+            } else if (cur == 0) {
+                return best;
+            } else {
+                cur = (cur - 1) / 2;
+            }
+        }
+    }
+
+    @Override
+    public List<Point> kNearest(double x, double y, int k) {
+        return points(kNearestIndices(x, y, k));
+    }
+
+    @Override
+    public List<Point> withinRadius(double x, double y, double r) {
+        return points(withinRadiusIndices(x, y, r));
+    }
+
+    /* returns the slots of the K points nearest to (x, y), nearest first. The K best are
+    * kept in a bounded max-heap, and a split is crossed only if it is nearer than the
+    * farthest of them. */
+    public int[] kNearestIndices(double x, double y, int k) {
+        BoundedMaxHeap<Integer> heap = new BoundedMaxHeap<>(Math.min(k, ids.length));
+        kNearest(0, x, y, Math.cos(Math.toRadians(y)), heap);
+        List<Integer> sorted = heap.toSortedList();
+        int[] result = new int[sorted.size()];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = sorted.get(i);
+        }
+        return result;
+    }
+
+    private void kNearest(int slot, double x, double y, double scale, BoundedMaxHeap<Integer> heap) {
+        if (slot >= ids.length) {
+            return;
+        }
+        double dx = (x - xs[slot]) * scale;
+        double dy = y - ys[slot];
+        heap.offer(slot, dx * dx + dy * dy);
+        double lineDist = isXBased(slot) ? dx : dy;
+        int left = 2 * slot + 1;
+        kNearest(lineDist < 0 ? left : left + 1, x, y, scale, heap);
+        if (lineDist * lineDist < heap.bound()) {
+            kNearest(lineDist < 0 ? left + 1 : left, x, y, scale, heap);
+        }
+    }
+
+    /* returns the slots of the points within R miles of (x, y), nearest first. */
+    public int[] withinRadiusIndices(double x, double y, double r) {
+        double scale = Math.cos(Math.toRadians(y));
+        double bound = (r / KdTree.MILES_PER_DEGREE) * (r / KdTree.MILES_PER_DEGREE);
+        List<Integer> found = new ArrayList<>();
+        withinRadius(0, x, y, scale, bound, found);
+        double[] dist = new double[found.size()];
+        Integer[] order = new Integer[found.size()];
+        for (int i = 0; i < order.length; i += 1) {
+            int slot = found.get(i);
+            double dx = (x - xs[slot]) * scale;
+            double dy = y - ys[slot];
+            dist[i] = dx * dx + dy * dy;
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(dist[a], dist[b]));
+        int[] result = new int[order.length];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = found.get(order[i]);
+        }
+        return result;
+    }
+
+    private void withinRadius(int slot, double x, double y, double scale, double bound, List<Integer> found) {
+        if (slot >= ids.length) {
+            return;
+        }
+        double dx = (x - xs[slot]) * scale;
+        double dy = y - ys[slot];
+        if (dx * dx + dy * dy <= bound) {
+            found.add(slot);
+        }
+        double lineDist = isXBased(slot) ? dx : dy;
+        int left = 2 * slot + 1;
+        withinRadius(lineDist < 0 ? left : left + 1, x, y, scale, bound, found);
+        if (lineDist * lineDist <= bound) {
+            withinRadius(lineDist < 0 ? left + 1 : left, x, y, scale, bound, found);
+        }
+    }
+
+    /* appends to OUT the slots of the points with MINX <= x <= MAXX and MINY <= y <= MAXY,
+    * in no particular order, and returns how many there are. A subtree is skipped when its
+    * split puts it entirely outside the box. */
+    public int range(double minX, double minY, double maxX, double maxY, IntArrayList out) {
+        int before = out.size();
+        range(0, minX, minY, maxX, maxY, out);
+        return out.size() - before;
+    }
+
+    private void range(int slot, double minX, double minY, double maxX, double maxY, IntArrayList out) {
+        if (slot >= ids.length) {
+            return;
+        }
+        double x = xs[slot];
+        double y = ys[slot];
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+            out.add(slot);
+        }
+        // the left subtree holds no larger split coordinate, the right one no smaller
+        double split = isXBased(slot) ? x : y;
+        double min = isXBased(slot) ? minX : minY;
+        double max = isXBased(slot) ? maxX : maxY;
+        if (min <= split) {
+            range(2 * slot + 1, minX, minY, maxX, maxY, out);
+        }
+        if (max >= split) {
+            range(2 * slot + 2, minX, minY, maxX, maxY, out);
+        }
+    }
+
+    private List<Point> points(int[] slots) {
+        List<Point> result = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            result.add(new Point(xs[slot], ys[slot]));
+        }
+        return result;
+    }
+
+    /* slots at even depths split on x. */
+    private static boolean isXBased(int i) {
+        return ((31 - Integer.numberOfLeadingZeros(i + 1)) & 1) == 0;
+    }
+
+    /* size of the left subtree of a complete binary tree of N nodes. */
+    private static int leftSize(int n) {
+        if (n <= 1) {
+            return 0;
+        }
+        int height = 31 - Integer.numberOfLeadingZeros(n);
+        int half = 1 << (height - 1);
+        int last = n - ((1 << height) - 1); // nodes on the lowest level
+        return half - 1 + Math.min(last, half);
+    }
+
+    /* fills the subtree rooted at slot SLOT with the points order[lo .. hi - 1]. */
+    private class Build extends RecursiveAction {
+        private final double[] srcX;
+        private final double[] srcY;
+        private final long[] srcIds;
+        private final int[] order;
+        private final int lo;
+        private final int hi;
+        private final int slot;
+
+        Build(double[] srcX, double[] srcY, long[] srcIds, int[] order, int lo, int hi, int slot) {
+            this.srcX = srcX;
+            this.srcY = srcY;
+            this.srcIds = srcIds;
+            this.order = order;
+            this.lo = lo;
+            this.hi = hi;
+            this.slot = slot;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo < FORK_THRESHOLD) {
+                build(lo, hi, slot);
+                return;
+            }
+            int mid = split(lo, hi, slot);
+            invokeAll(new Build(srcX, srcY, srcIds, order, lo, mid, 2 * slot + 1),
+                    new Build(srcX, srcY, srcIds, order, mid + 1, hi, 2 * slot + 2));
+        }
+
+        private void build(int lo, int hi, int slot) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = split(lo, hi, slot);
+            build(lo, mid, 2 * slot + 1);
+            build(mid + 1, hi, 2 * slot + 2);
+        }
+
+        /* moves the median of order[lo .. hi - 1] into SLOT and returns its position. */
+        private int split(int lo, int hi, int slot) {
+            int mid = lo + leftSize(hi - lo);
+            double[] coords = isXBased(slot) ? srcX : srcY;
+            select(coords, lo, hi, mid);
+            int p = order[mid];
+            xs[slot] = srcX[p];
+            ys[slot] = srcY[p];
+            ids[slot] = srcIds[p];
+            return mid;
+        }
+
+        /* quickselect on order[lo .. hi - 1] by COORDS: afterwards order[k] is in place, with no
+        * larger coordinate before it and no smaller one after it. */
+        private void select(double[] coords, int lo, int hi, int k) {
+            hi -= 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1; // median of three as pivot
+                if (coords[order[mid]] < coords[order[lo]]) {
+                    exchange(lo, mid);
+                }
+                if (coords[order[hi]] < coords[order[lo]]) {
+                    exchange(lo, hi);
+                }
+                if (coords[order[hi]] < coords[order[mid]]) {
+                    exchange(mid, hi);
+                }
+                double pivot = coords[order[mid]];
+                int i = lo;
+                int j = hi;
+                while (i <= j) { // Hoare partition
+                    while (coords[order[i]] < pivot) {
+                        i += 1;
+                    }
+                    while (coords[order[j]] > pivot) {
+                        j -= 1;
+                    }
+                    if (i <= j) {
+                        exchange(i, j);
+                        i += 1;
+                        j -= 1;
+                    }
+                }
+                if (k <= j) {
+                    hi = j;
+                } else if (k >= i) {
+                    lo = i;
+                } else {
+                    return; // order[j + 1 .. i - 1] all equal the pivot
+                }
+            }
+        }
+
+        private void exchange(int i, int j) {
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    private static double[] xs(Point[] points) {
+        double[] result = new double[points.length];
+        for (int i = 0; i < points.length; i += 1) {
+            result[i] = points[i].getX();
+        }
+        return result;
+    }
+
+    private static double[] ys(Point[] points) {
+        double[] result = new double[points.length];
+        for (int i = 0; i < points.length; i += 1) {
+            result[i] = points[i].getY();
+        }
+        return result;
+    }
+
+    private static long[] indices(int n) {
+        long[] result = new long[n];
+        for (int i = 0; i < n; i += 1) {
+            result[i] = i;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,287 @@
+package bearmaps.proj2ab;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+/**
+ * Uniform grid over points, taking x as the longitude and y as the latitude.
+ * The bounding box of the points is cut into cells of equal size, square on the ground at
+ * the middle latitude, and the points are stored cell by cell in one array, with the start
+ * of every cell in another. The cell size is given in miles, or chosen so that there are
+ * about two points per cell.
+ *
+ * nearest searches the cell of the goal first, then the rings of cells around it, one ring
+ * further out at a time. It stops as soon as the best point so far is no farther than the
+ * nearest cell not yet searched. For points of fairly even density this takes a few cells
+ * whatever the number of points, but a point far from all others can take many rings.
+ * Distances are compared squared, on the same equirectangular projection as KdTree.nearest.
+ */
+public class GridPointSet implements RangePointSet {
+
+    /** Target number of points per cell when no cell size is given. */
+    private static final double POINTS_PER_CELL = 2;
+    /** Largest number of cells; larger cells are used if the given size would need more. */
+    private static final int MAX_CELLS = 1 << 22;
+    /** Point sets with fewer points find their cells on the calling thread. */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private final double minX;
+    private final double minY;
+    private final double cellX; // cell width, in degrees of longitude
+    private final double cellY; // cell height, in degrees of latitude
+    private final int cols;
+    private final int rows;
+    /* the points of cell c are at cellStart[c] .. cellStart[c + 1] - 1 in the arrays below */
+    private final int[] cellStart;
+    private final double[] xs;
+    private final double[] ys;
+    private final Point[] points;
+
+    /* a grid of POINTS with about two points per cell. */
+    public GridPointSet(List<Point> points) {
+        this(points, defaultCellMiles(points));
+    }
+
+    /* a grid of POINTS with cells CELLMILES miles high and wide. */
+    public GridPointSet(List<Point> points, double cellMiles) {
+        if (!(cellMiles > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+        int n = points.size();
+        double loX = 0;
+        double loY = 0;
+        double hiX = 0;
+        double hiY = 0;
+        if (n > 0) {
+            loX = Double.POSITIVE_INFINITY;
+            loY = Double.POSITIVE_INFINITY;
+            hiX = Double.NEGATIVE_INFINITY;
+            hiY = Double.NEGATIVE_INFINITY;
+            for (Point p : points) {
+                loX = Math.min(loX, p.getX());
+                loY = Math.min(loY, p.getY());
+                hiX = Math.max(hiX, p.getX());
+                hiY = Math.max(hiY, p.getY());
+            }
+        }
+        double height = cellMiles / KdTree.MILES_PER_DEGREE;
+        double width = height / scale(loY, hiY);
+        double cells = Math.ceil((hiX - loX) / width) * Math.ceil((hiY - loY) / height);
+        if (cells > MAX_CELLS) {
+            double grow = Math.sqrt(cells / MAX_CELLS) * 1.01;
+            height *= grow;
+            width *= grow;
+        }
+        minX = loX;
+        minY = loY;
+        cellX = width;
+        cellY = height;
+        /* points on a line may still need more than MAX_CELLS cells along it */
+        cols = Math.max(1, Math.min((int) Math.ceil((hiX - loX) / width), MAX_CELLS));
+        rows = Math.max(1, Math.min((int) Math.ceil((hiY - loY) / height), MAX_CELLS / cols));
+
+        /* count the points of every cell, then place them by counting sort. */
+        IntStream indices = IntStream.range(0, n);
+        if (n >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        int[] cellOf = indices.map(i -> cell(points.get(i).getX(), points.get(i).getY())).toArray();
+        cellStart = new int[cols * rows + 1];
+        for (int c : cellOf) {
+            cellStart[c + 1] += 1;
+        }
+        for (int c = 0; c < cols * rows; c += 1) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] next = cellStart.clone();
+        xs = new double[n];
+        ys = new double[n];
+        this.points = new Point[n];
+        for (int i = 0; i < n; i += 1) {
+            int slot = next[cellOf[i]];
+            next[cellOf[i]] += 1;
+            Point p = points.get(i);
+            xs[slot] = p.getX();
+            ys[slot] = p.getY();
+            this.points[slot] = p;
+        }
+    }
+
+    /* a cell size for about POINTS_PER_CELL points per cell over the bounding box of POINTS. */
+    private static double defaultCellMiles(List<Point> points) {
+        double loX = Double.POSITIVE_INFINITY;
+        double loY = Double.POSITIVE_INFINITY;
+        double hiX = Double.NEGATIVE_INFINITY;
+        double hiY = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            loX = Math.min(loX, p.getX());
+            loY = Math.min(loY, p.getY());
+            hiX = Math.max(hiX, p.getX());
+            hiY = Math.max(hiY, p.getY());
+        }
+        double cells = Math.max(points.size() / POINTS_PER_CELL, 1);
+        double width = (hiX - loX) * scale(loY, hiY);
+        double height = hiY - loY;
+        double side = Math.sqrt(width * height / cells);
+        if (!(side > 0)) { // no points, or all of them on a line or a point
+            side = Math.max(width, height) / cells;
+        }
+        return side > 0 ? side * KdTree.MILES_PER_DEGREE : 1;
+    }
+
+    /* the length of a degree of longitude over one of latitude at the middle of LOY .. HIY. */
+    private static double scale(double loY, double hiY) {
+        return Math.max(Math.cos(Math.toRadians((loY + hiY) / 2)), 1e-6);
+    }
+
+    public int size() {
+        return points.length;
+    }
+
+    /* the height and width of a cell, in miles. */
+    public double cellMiles() {
+        return cellY * KdTree.MILES_PER_DEGREE;
+    }
+
+    private int col(double x) {
+        return clamp((int) Math.floor((x - minX) / cellX), cols);
+    }
+
+    private int row(double y) {
+        return clamp((int) Math.floor((y - minY) / cellY), rows);
+    }
+
+    private int cell(double x, double y) {
+        return row(y) * cols + col(x);
+    }
+
+    private static int clamp(int i, int n) {
+        return Math.max(0, Math.min(i, n - 1));
+    }
+
+    @Override
+    public Point nearest(double x, double y) {
+        return points[nearestIndex(x, y)];
+    }
+
+    /* returns the index of the point nearest to (x, y) in the cell-ordered arrays. */
+    private int nearestIndex(double x, double y) {
+        if (points.length == 0) {
+            throw new NoSuchElementException("The grid is empty.");
+        }
+        double scale = Math.cos(Math.toRadians(y)); // see KdTree.nearest
+        int col = col(x);
+        int row = row(y);
+        int best = -1;
+        double bestDist = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ; ring += 1) {
+            for (int r = Math.max(row - ring, 0); r <= Math.min(row + ring, rows - 1); r += 1) {
+                // the top and bottom rows of the ring are whole, the others only have their ends
+                int step = r == row - ring || r == row + ring ? 1 : 2 * ring;
+                int first = step == 1 ? Math.max(col - ring, 0) : col - ring;
+                int last = step == 1 ? Math.min(col + ring, cols - 1) : col + ring;
+                for (int c = first; c <= last; c += step) {
+                    if (c < 0 || c >= cols) {
+                        continue;
+                    }
+                    int cell = r * cols + c;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i += 1) {
+                        double dx = (xs[i] - x) * scale;
+                        double dy = ys[i] - y;
+                        double dist = dx * dx + dy * dy;
+                        if (dist < bestDist) {
+                            best = i;
+                            bestDist = dist;
+                        }
+                    }
+                }
+            }
+            double outside = outside(x, y, scale, col, row, ring);
+            if (bestDist <= outside * outside) {
+                return best;
+            }
+        }
+    }
+
+    /* the distance from (x, y) to the nearest cell outside the square of rings 0 to RING
+    * around cell (COL, ROW), or infinity if the square covers the grid. */
+    private double outside(double x, double y, double scale, int col, int row, int ring) {
+        double dist = Double.POSITIVE_INFINITY;
+        if (col - ring > 0) {
+            dist = Math.min(dist, (x - (minX + (col - ring) * cellX)) * scale);
+        }
+        if (col + ring < cols - 1) {
+            dist = Math.min(dist, (minX + (col + ring + 1) * cellX - x) * scale);
+        }
+        if (row - ring > 0) {
+            dist = Math.min(dist, y - (minY + (row - ring) * cellY));
+        }
+        if (row + ring < rows - 1) {
+            dist = Math.min(dist, minY + (row + ring + 1) * cellY - y);
+        }
+        return Math.max(dist, 0);
+    }
+
+    /* returns the K points nearest to (x, y), nearest first, searching rings like nearest
+    * until the farthest of the K best is no farther than the cells not yet searched. */
+    @Override
+    public List<Point> kNearest(double x, double y, int k) {
+        BoundedMaxHeap<Point> heap = new BoundedMaxHeap<>(Math.min(k, xs.length));
+        double scale = Math.cos(Math.toRadians(y));
+        int col = col(x);
+        int row = row(y);
+        for (int ring = 0; ; ring += 1) {
+            for (int r = Math.max(row - ring, 0); r <= Math.min(row + ring, rows - 1); r += 1) {
+                int step = r == row - ring || r == row + ring ? 1 : 2 * ring;
+                int first = step == 1 ? Math.max(col - ring, 0) : col - ring;
+                int last = step == 1 ? Math.min(col + ring, cols - 1) : col + ring;
+                for (int c = first; c <= last; c += step) {
+                    if (c < 0 || c >= cols) {
+                        continue;
+                    }
+                    int cell = r * cols + c;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i += 1) {
+                        double dx = (xs[i] - x) * scale;
+                        double dy = ys[i] - y;
+                        heap.offer(points[i], dx * dx + dy * dy);
+                    }
+                }
+            }
+            double outside = outside(x, y, scale, col, row, ring);
+            if (heap.bound() <= outside * outside) {
+                return heap.toSortedList();
+            }
+        }
+    }
+
+    /* returns the points within R miles of (x, y), nearest first, measured like nearest. */
+    @Override
+    public List<Point> withinRadius(double x, double y, double r) {
+        double scale = Math.cos(Math.toRadians(y));
+        double radius = r / KdTree.MILES_PER_DEGREE;
+        double bound = radius * radius;
+        List<Point> found = new ArrayList<>();
+        int c0 = col(x - radius / scale);
+        int c1 = col(x + radius / scale);
+        for (int row = row(y - radius); row <= row(y + radius); row += 1) {
+            for (int cell = row * cols + c0; cell <= row * cols + c1; cell += 1) {
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i += 1) {
+                    double dx = (xs[i] - x) * scale;
+                    double dy = ys[i] - y;
+                    if (dx * dx + dy * dy <= bound) {
+                        found.add(points[i]);
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingDouble(p -> {
+            double dx = (p.getX() - x) * scale;
+            double dy = p.getY() - y;
+            return dx * dx + dy * dy;
+        }));
+        return found;
+    }
+}
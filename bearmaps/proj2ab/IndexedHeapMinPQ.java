@@ -0,0 +1,177 @@
+package bearmaps.proj2ab;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * 4-ary heap implementation of IndexedMinPQ.
+ * Priorities sit in a double[] next to the items, so comparisons never follow a pointer,
+ * and the slot of every item is kept in an int[] indexed by item instead of a HashMap.
+ * Sifts move a hole up or down and write the moved entry once at the end, rather than
+ * swapping at every level. With four children per node the heap is half as deep as a
+ * binary heap, and the four children are adjacent in memory.
+ */
+public class IndexedHeapMinPQ implements IndexedMinPQ {
+
+    private static final int D = 4;
+    private static final int INIT_CAPACITY = 16;
+
+    private int[] items;      // items[i] = item in slot i, slot 0 is the root
+    private double[] keys;    // keys[i] = priority of items[i]
+    private int[] slot;       // slot[item] = slot of item, or -1 if it is not in the heap
+    private int size;
+
+    /* an empty PQ for the items 0 to INIT_CAPACITY - 1; it grows as larger items are added. */
+    public IndexedHeapMinPQ() {
+        this(INIT_CAPACITY);
+    }
+
+    /* an empty PQ for the items 0 to capacity - 1. */
+    public IndexedHeapMinPQ(int capacity) {
+        items = new int[Math.max(capacity, 1)];
+        keys = new double[items.length];
+        slot = new int[items.length];
+        Arrays.fill(slot, -1);
+    }
+
+    @Override
+    public void ensureCapacity(int n) {
+        if (n <= slot.length) {
+            return;
+        }
+        int capacity = Math.max(n, slot.length * 2);
+        int old = slot.length;
+        items = Arrays.copyOf(items, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        slot = Arrays.copyOf(slot, capacity);
+        Arrays.fill(slot, old, capacity, -1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /* return true if the heap is empty. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(int item) {
+        return item >= 0 && item < slot.length && slot[item] != -1;
+    }
+
+    /* insert an item with given priority value. */
+    @Override
+    public void add(int item, double priority) {
+        if (item < 0) {
+            throw new IllegalArgumentException("Item must not be negative.");
+        }
+        ensureCapacity(item + 1);
+        if (slot[item] != -1) {
+            throw new IllegalArgumentException("Item already exists.");
+        }
+        size += 1;
+        siftUp(size - 1, item, priority);
+    }
+
+    @Override
+    public int smallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("No such items exist.");
+        }
+        return items[0];
+    }
+
+    @Override
+    public double smallestPriority() {
+        if (size == 0) {
+            throw new NoSuchElementException("No such items exist.");
+        }
+        return keys[0];
+    }
+
+    @Override
+    public int popSmallest() {
+        int smallest = smallest();
+        slot[smallest] = -1;
+        size -= 1;
+        if (size > 0) {
+            siftDown(0, items[size], keys[size]);
+        }
+        return smallest;
+    }
+
+    @Override
+    public void changePriority(int item, double priority) {
+        if (!contains(item)) {
+            throw new NoSuchElementException("Item does not exist.");
+        }
+        int i = slot[item];
+        if (priority < keys[i]) {
+            siftUp(i, item, priority);
+        } else if (priority > keys[i]) {
+            siftDown(i, item, priority);
+        }
+    }
+
+    @Override
+    public double priority(int item) {
+        if (!contains(item)) {
+            throw new NoSuchElementException("Item does not exist.");
+        }
+        return keys[slot[item]];
+    }
+
+    /* removes all items in time proportional to the number of items. */
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i += 1) {
+            slot[items[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /* moves the hole at slot I up until ITEM, with priority KEY, fits there. */
+    private void siftUp(int i, int item, double key) {
+        while (i > 0) {
+            int parent = (i - 1) / D;
+            if (keys[parent] <= key) {
+                break;
+            }
+            place(i, items[parent], keys[parent]);
+            i = parent;
+        }
+        place(i, item, key);
+    }
+
+    /* moves the hole at slot I down until ITEM, with priority KEY, fits there. */
+    private void siftDown(int i, int item, double key) {
+        while (true) {
+            int first = D * i + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + D, size);
+            int min = first;
+            for (int c = first + 1; c < last; c += 1) {
+                if (keys[c] < keys[min]) {
+                    min = c;
+                }
+            }
+            if (key <= keys[min]) {
+                break;
+            }
+            place(i, items[min], keys[min]);
+            i = min;
+        }
+        place(i, item, key);
+    }
+
+    private void place(int i, int item, double key) {
+        items[i] = item;
+        keys[i] = key;
+        slot[item] = i;
+    }
+}
@@ -0,0 +1,52 @@
+package bearmaps.proj2ab;
+/**
+ * ExtrinsicMinPQ whose items are the ints 0 to capacity - 1, such as the vertex numbers
+ * of a CompactGraph. Items can then index arrays directly instead of going through a
+ * HashMap, and the int methods below avoid boxing; the Integer methods of
+ * ExtrinsicMinPQ forward to them.
+ */
+public interface IndexedMinPQ extends ExtrinsicMinPQ<Integer> {
+    /* Inserts an item with the given priority value. */
+    void add(int item, double priority);
+    /* Returns true if the PQ contains the given item. */
+    boolean contains(int item);
+    /* Returns the minimum item. */
+    int smallest();
+    /* Returns the priority of the minimum item. */
+    double smallestPriority();
+    /* Removes and returns the minimum item. */
+    int popSmallest();
+    /* Changes the priority of the given item. */
+    void changePriority(int item, double priority);
+    /* Returns the priority of the given item. */
+    double priority(int item);
+    /* Makes room for the items 0 to N - 1. */
+    void ensureCapacity(int n);
+    /* Removes all items. */
+    void clear();
+
+    @Override
+    default void add(Integer item, double priority) {
+        add(item.intValue(), priority);
+    }
+
+    @Override
+    default boolean contains(Integer item) {
+        return contains(item.intValue());
+    }
+
+    @Override
+    default Integer getSmallest() {
+        return smallest();
+    }
+
+    @Override
+    default Integer removeSmallest() {
+        return popSmallest();
+    }
+
+    @Override
+    default void changePriority(Integer item, double priority) {
+        changePriority(item.intValue(), priority);
+    }
+}
@@ -0,0 +1,57 @@
+package bearmaps.proj2ab;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of ints, used as an output buffer by queries that return many indices.
+ * Clearing keeps the array, so one buffer reused across queries stops allocating once it
+ * has grown to the largest result.
+ */
+public class IntArrayList {
+
+    private static final int INIT_CAPACITY = 16;
+
+    private int[] items;
+    private int size;
+
+    public IntArrayList() {
+        this(INIT_CAPACITY);
+    }
+
+    public IntArrayList(int capacity) {
+        items = new int[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(int item) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size] = item;
+        size += 1;
+    }
+
+    public int get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size + ".");
+        }
+        return items[i];
+    }
+
+    /* removes all items but keeps the array. */
+    public void clear() {
+        size = 0;
+    }
+
+    /* returns a copy of the items. */
+    public int[] toArray() {
+        return Arrays.copyOf(items, size);
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -38,4 +39,207 @@ public class KDTreeTest {
         assertEquals(p4, nearestNaive);
         assertEquals(p4, nearestWeird);
     }
+
+    @Test
+    public void testBulkLoad() {
+        Random random = new Random(20);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 20000; i += 1) {
+            // few distinct x coordinates, so that many points tie at the medians
+            points.add(new Point(random.nextInt(100), random.nextDouble() * 80));
+        }
+        points.add(points.get(7)); // a duplicated point
+        KdTree kd = new KdTree(points);
+        KdTree bulk = KdTree.bulkLoad(points);
+
+        for (int i = 0; i < 1000; i += 1) {
+            double x = random.nextDouble() * 110 - 5;
+            double y = random.nextDouble() * 85 - 2;
+            double expected = Double.POSITIVE_INFINITY;
+            for (Point p : points) {
+                expected = Math.min(expected, projected(p, x, y));
+            }
+            assertEquals(expected, projected(kd.nearest(x, y), x, y), 1e-12);
+            assertEquals(expected, projected(bulk.nearest(x, y), x, y), 1e-12);
+        }
+        assertTrue(bulk.visitedNodes() < 1000 * 100); // about 20000 per search without pruning
+        assertEquals(points.get(7), bulk.nearest(points.get(7).getX(), points.get(7).getY()));
+    }
+
+    @Test
+    public void testFlatKdTree() {
+        Random random = new Random(21);
+        for (int n = 1; n <= 40; n += 1) { // every shape of the last level
+            checkFlatKdTree(random, n, 1000);
+        }
+        checkFlatKdTree(random, 20000, 100);
+    }
+
+    private void checkFlatKdTree(Random random, int n, int range) {
+        Point[] points = new Point[n];
+        for (int i = 0; i < n; i += 1) {
+            points[i] = new Point(random.nextInt(range), random.nextInt(range) * 80.0 / range);
+        }
+        FlatKdTree kd = new FlatKdTree(points);
+        assertEquals(n, kd.size());
+        for (int i = 0; i < 200; i += 1) {
+            double x = random.nextDouble() * range * 1.2 - range * 0.1;
+            double y = random.nextDouble() * 85 - 2;
+            double expected = Double.POSITIVE_INFINITY;
+            for (Point p : points) {
+                expected = Math.min(expected, projected(p, x, y));
+            }
+            Point nearest = points[(int) kd.nearestId(x, y)];
+            assertEquals(expected, projected(nearest, x, y), 1e-12);
+            assertEquals(nearest, kd.nearest(x, y));
+        }
+    }
+
+    @Test
+    public void testGridPointSet() {
+        Random random = new Random(25);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 3000; i += 1) { // a dense town and a few farms around it
+            points.add(new Point(-122.27 + random.nextGaussian() * 0.01, 37.87 + random.nextGaussian() * 0.01));
+        }
+        for (int i = 0; i < 30; i += 1) {
+            points.add(new Point(-122.6 + random.nextDouble() * 0.6, 37.6 + random.nextDouble() * 0.5));
+        }
+        for (GridPointSet grid : List.of(new GridPointSet(points), new GridPointSet(points, 0.001),
+                new GridPointSet(points, 100))) {
+            assertEquals(points.size(), grid.size());
+            for (int i = 0; i < 300; i += 1) {
+                double x = -122.8 + random.nextDouble() * 1.0;
+                double y = 37.5 + random.nextDouble() * 0.7;
+                double expected = Double.POSITIVE_INFINITY;
+                for (Point p : points) {
+                    expected = Math.min(expected, projected(p, x, y));
+                }
+                assertEquals(expected, projected(grid.nearest(x, y), x, y), 1e-12);
+            }
+            for (Point p : points.subList(0, 50)) {
+                assertEquals(p, grid.nearest(p.getX(), p.getY()));
+            }
+        }
+        assertEquals(1, new GridPointSet(List.of(new Point(1, 2))).kNearest(5, 5, 3).size());
+        assertEquals(0, new GridPointSet(new ArrayList<>()).kNearest(5, 5, 3).size());
+    }
+
+    @Test
+    public void testGridPointSetOnALine() {
+        Random random = new Random(26);
+        List<Point> nearlyCollinear = new ArrayList<>();
+        List<Point> collinear = new ArrayList<>();
+        for (int i = 0; i < 2000; i += 1) {
+            double x = -122.5 + random.nextDouble() * 0.5;
+            nearlyCollinear.add(new Point(x, 37.8 + random.nextDouble() * 1e-12));
+            collinear.add(new Point(x, 37.8));
+        }
+        for (List<Point> points : List.of(nearlyCollinear, collinear)) {
+            // tiny cells would need far more than the largest number of cells along the line
+            for (GridPointSet grid : List.of(new GridPointSet(points, 1e-9), new GridPointSet(points))) {
+                assertEquals(points.size(), grid.size());
+                for (int i = 0; i < 100; i += 1) {
+                    double x = -122.6 + random.nextDouble() * 0.7;
+                    double y = 37.8 + (random.nextDouble() - 0.5) * 0.01;
+                    List<Point> byProjection = new ArrayList<>(points);
+                    byProjection.sort((p, q) -> Double.compare(projected(p, x, y), projected(q, x, y)));
+                    assertEquals(projected(byProjection.get(0), x, y), projected(grid.nearest(x, y), x, y), 1e-15);
+                    assertEquals(byProjection.subList(0, 5), grid.kNearest(x, y, 5));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testKNearestAndWithinRadius() {
+        Random random = new Random(23);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 5000; i += 1) {
+            points.add(new Point(-122.3 + random.nextDouble() * 0.1, 37.85 + random.nextDouble() * 0.06));
+        }
+        List<RangePointSet> trees = new ArrayList<>();
+        Collections.addAll(trees, new KdTree(points), KdTree.bulkLoad(points),
+                new FlatKdTree(points.toArray(new Point[0])), new GridPointSet(points),
+                new GridPointSet(points, 0.05));
+        NaivePointSet naive = new NaivePointSet(points);
+
+        for (int i = 0; i < 100; i += 1) {
+            double x = -122.31 + random.nextDouble() * 0.12;
+            double y = 37.84 + random.nextDouble() * 0.08;
+            int k = 1 + random.nextInt(20);
+            double r = random.nextDouble() * 0.5;
+
+            List<Point> byProjection = new ArrayList<>(points);
+            byProjection.sort((p, q) -> Double.compare(projected(p, x, y), projected(q, x, y)));
+            List<Point> expectedRadius = new ArrayList<>();
+            for (Point p : byProjection) {
+                if (projected(p, x, y) * KdTree.MILES_PER_DEGREE <= r) {
+                    expectedRadius.add(p);
+                }
+            }
+            for (RangePointSet tree : trees) {
+                assertEquals(byProjection.subList(0, k), tree.kNearest(x, y, k));
+                assertEquals(expectedRadius, tree.withinRadius(x, y, r));
+                assertEquals(tree.nearest(x, y), tree.kNearest(x, y, 1).get(0));
+            }
+
+            // the naive set measures like the trees, though its nearest uses Point.distance
+            assertEquals(byProjection.subList(0, k), naive.kNearest(x, y, k));
+            assertEquals(expectedRadius, naive.withinRadius(x, y, r));
+        }
+        assertEquals(0, naive.kNearest(0, 0, 0).size());
+        assertEquals(points.size(), trees.get(2).kNearest(0, 0, points.size() + 10).size());
+        for (RangePointSet tree : trees) {
+            assertEquals(points.size(), tree.kNearest(0, 0, Integer.MAX_VALUE).size());
+        }
+        assertEquals(points.size(), naive.kNearest(0, 0, Integer.MAX_VALUE).size());
+        List<Point> twice = new ArrayList<>(points);
+        twice.addAll(points);
+        assertEquals("the constructor skips duplicates", points.size(),
+                new KdTree(twice).kNearest(0, 0, Integer.MAX_VALUE).size());
+        assertEquals(twice.size(), KdTree.bulkLoad(twice).kNearest(0, 0, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testFlatKdTreeRange() {
+        Random random = new Random(24);
+        Point[] points = new Point[3000];
+        for (int i = 0; i < points.length; i += 1) {
+            points[i] = new Point(random.nextInt(200) * 0.0005, random.nextInt(200) * 0.0005);
+        }
+        FlatKdTree tree = new FlatKdTree(points);
+        IntArrayList slots = new IntArrayList();
+        for (int i = 0; i < 200; i += 1) {
+            double minX = random.nextInt(220) * 0.0005 - 0.005;
+            double minY = random.nextInt(220) * 0.0005 - 0.005;
+            double maxX = minX + random.nextInt(60) * 0.0005;
+            double maxY = minY + random.nextInt(60) * 0.0005;
+            slots.clear();
+            int count = tree.range(minX, minY, maxX, maxY, slots);
+            assertEquals(slots.size(), count);
+
+            List<Long> expected = new ArrayList<>();
+            for (int j = 0; j < points.length; j += 1) {
+                Point p = points[j];
+                if (p.getX() >= minX && p.getX() <= maxX && p.getY() >= minY && p.getY() <= maxY) {
+                    expected.add((long) j);
+                }
+            }
+            List<Long> actual = new ArrayList<>();
+            for (int j = 0; j < slots.size(); j += 1) {
+                actual.add(tree.id(slots.get(j)));
+            }
+            Collections.sort(actual);
+            assertEquals(expected, actual);
+        }
+        slots.clear();
+        assertEquals(points.length, tree.range(-1, -1, 1, 1, slots));
+        assertEquals(0, tree.range(1, 1, -1, -1, slots));
+    }
+
+    /* distance on the equirectangular projection around (x, y) used by the kd trees. */
+    private static double projected(Point p, double x, double y) {
+        return Math.hypot((p.getX() - x) * Math.cos(Math.toRadians(y)), p.getY() - y);
+    }
 }
@@ -1,11 +1,21 @@
 package bearmaps.proj2ab;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
-public class KdTree implements PointSet {
+public class KdTree implements RangePointSet {
+
+    /* subtrees with fewer points are bulk loaded without forking. */
+    private static final int FORK_THRESHOLD = 1 << 13;
+    /* miles per degree of latitude on the sphere of Point.distance. */
+    static final double MILES_PER_DEGREE = 3963 * Math.PI / 180;
 
     private Node root;
+    private int size; // points in the tree, without the duplicates the constructor skips
+    private long visited; // nodes visited by nearest searches
 
     /* nested class Node:
     * we can either add a compareTo method that compare two Node objects,
@@ -55,9 +65,125 @@ public class KdTree implements PointSet {
         }
     }
 
+    private KdTree(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /* a balanced kd tree of the given points, built by splitting them at the median x or
+    * y coordinate, alternating by depth, so its depth is at most log2(n) + 1 whatever the
+    * order of POINTS. The medians are found by quickselect in linear time per level, and
+    * the two halves of large subtrees are built in parallel on the common fork-join pool.
+    * Unlike the constructor, duplicated points are all kept. */
+    public static KdTree bulkLoad(List<Point> points) {
+        Point[] sorted = points.toArray(new Point[0]);
+        return new KdTree(ForkJoinPool.commonPool().invoke(new BulkLoad(sorted, 0, sorted.length, true)),
+                sorted.length);
+    }
+
+    /* builds the subtree of points[lo .. hi - 1], reordering them. */
+    private static class BulkLoad extends RecursiveTask<Node> {
+        private final Point[] points;
+        private final int lo;
+        private final int hi;
+        private final boolean xBased;
+
+        BulkLoad(Point[] points, int lo, int hi, boolean xBased) {
+            this.points = points;
+            this.lo = lo;
+            this.hi = hi;
+            this.xBased = xBased;
+        }
+
+        @Override
+        protected Node compute() {
+            if (hi - lo < FORK_THRESHOLD) {
+                return build(points, lo, hi, xBased);
+            }
+            int mid = (lo + hi) >>> 1;
+            select(points, lo, hi, mid, xBased);
+            BulkLoad left = new BulkLoad(points, lo, mid, !xBased);
+            left.fork();
+            Node node = node(points[mid], xBased);
+            node.right = new BulkLoad(points, mid + 1, hi, !xBased).compute();
+            node.left = left.join();
+            return node;
+        }
+    }
+
+    private static Node build(Point[] points, int lo, int hi, boolean xBased) {
+        if (lo >= hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(points, lo, hi, mid, xBased);
+        Node node = node(points[mid], xBased);
+        node.left = build(points, lo, mid, !xBased);
+        node.right = build(points, mid + 1, hi, !xBased);
+        return node;
+    }
+
+    private static Node node(Point point, boolean xBased) {
+        Node node = new Node(point);
+        node.XBased = xBased;
+        return node;
+    }
+
+    /* quickselect: reorders points[lo .. hi - 1] so that points[k] has the coordinate it
+    * would have if they were sorted, with no larger one before it and no smaller one after. */
+    private static void select(Point[] points, int lo, int hi, int k, boolean xBased) {
+        hi -= 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1; // median of three as pivot
+            if (coordinate(points[mid], xBased) < coordinate(points[lo], xBased)) {
+                exchange(points, lo, mid);
+            }
+            if (coordinate(points[hi], xBased) < coordinate(points[lo], xBased)) {
+                exchange(points, lo, hi);
+            }
+            if (coordinate(points[hi], xBased) < coordinate(points[mid], xBased)) {
+                exchange(points, mid, hi);
+            }
+            double pivot = coordinate(points[mid], xBased);
+            int i = lo;
+            int j = hi;
+            while (i <= j) { // Hoare partition
+                while (coordinate(points[i], xBased) < pivot) {
+                    i += 1;
+                }
+                while (coordinate(points[j], xBased) > pivot) {
+                    j -= 1;
+                }
+                if (i <= j) {
+                    exchange(points, i, j);
+                    i += 1;
+                    j -= 1;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return; // points[j + 1 .. i - 1] all equal the pivot
+            }
+        }
+    }
+
+    private static double coordinate(Point p, boolean xBased) {
+        return xBased ? p.getX() : p.getY();
+    }
+
+    private static void exchange(Point[] points, int i, int j) {
+        Point tmp = points[i];
+        points[i] = points[j];
+        points[j] = tmp;
+    }
+
     /* insertion of kd tree */
     private Node insert(Node root, Node n) {
         if (root == null) {
+            size += 1;
             return n;
         }
         if (root.point.equals(n.point)) {
@@ -82,45 +208,109 @@ public class KdTree implements PointSet {
         return root;
     }
 
+    /* returns the point nearest to (x, y), taking x as the longitude and y as the latitude.
+    * Distances are measured on the equirectangular projection around the goal: longitude
+    * differences are scaled by the cosine of the goal's latitude, which agrees with the
+    * haversine distance of Point.distance over the distances between nearby points. */
     @Override
     public Point nearest(double x, double y) {
-        Point goal = new Point(x, y);
-        Node best = root;
-        return helper(root, goal, best).point;
+        double scale = Math.cos(Math.toRadians(y));
+        return helper(root, x, y, scale, root).point;
     }
 
-    private Node helper(Node n, Point goal, Node best) {
+    /* returns the nearest node to (x, y) in the subtree of N, or BEST if none is nearer.
+    * The bad side is searched only if the splitting line is nearer than the best node
+    * found on the good side; all distances are compared squared. */
+    private Node helper(Node n, double x, double y, double scale, Node best) {
         if (n == null) {
             return best;
         }
+        visited += 1;
         // update the best node information whenever we find a better one
-        double bestDistance = distance(goal, best.point);
-        double curDistance = distance(goal, n.point);
-        if (Double.compare(curDistance, bestDistance) < 0) { // if current distance is less than the best distance
+        if (squaredDistance(n.point, x, y, scale) < squaredDistance(best.point, x, y, scale)) {
             best = n;
         }
 
-        Node goalNode = new Node(goal);
+        double diff = n.XBased ? x - n.point.getX() : y - n.point.getY();
+        double lineDistance = n.XBased ? diff * scale : diff; // distance to the splitting line
         Node goodside, badside;
-        if (intComparator.compare(n, goalNode) < 0) { // if n is less than goal
+        if (diff > 0) { // if n is less than goal
             goodside = n.right;
             badside = n.left;
         } else {
             goodside = n.left;
             badside = n.right;
         }
-        best = helper(goodside, goal, best);
-        if (Math.abs(n.point.getX() - goal.getX()) < bestDistance ||
-        Math.abs(n.point.getY() - goal.getY()) < bestDistance) {
-            best = helper(badside, goal, best);
+        best = helper(goodside, x, y, scale, best);
+        if (lineDistance * lineDistance < squaredDistance(best.point, x, y, scale)) {
+            best = helper(badside, x, y, scale, best);
         }
         return best;
     }
 
-    private double distance(Point i, Point j) {
-        double pow1 = Math.pow(i.getX() - j.getX(), 2);
-        double pow2 = Math.pow(i.getY() - j.getY(), 2);
-        return Math.sqrt(pow1 + pow2);
+    /* returns the K points nearest to (x, y), nearest first, searching like nearest but
+    * keeping the K best in a bounded max-heap; the bad side is searched only if the
+    * splitting line is nearer than the farthest of them. */
+    @Override
+    public List<Point> kNearest(double x, double y, int k) {
+        BoundedMaxHeap<Point> heap = new BoundedMaxHeap<>(Math.min(k, size));
+        kNearest(root, x, y, Math.cos(Math.toRadians(y)), heap);
+        return heap.toSortedList();
+    }
+
+    private void kNearest(Node n, double x, double y, double scale, BoundedMaxHeap<Point> heap) {
+        if (n == null) {
+            return;
+        }
+        visited += 1;
+        heap.offer(n.point, squaredDistance(n.point, x, y, scale));
+        double diff = n.XBased ? x - n.point.getX() : y - n.point.getY();
+        double lineDistance = n.XBased ? diff * scale : diff;
+        kNearest(diff > 0 ? n.right : n.left, x, y, scale, heap);
+        if (lineDistance * lineDistance < heap.bound()) {
+            kNearest(diff > 0 ? n.left : n.right, x, y, scale, heap);
+        }
+    }
+
+    /* returns the points within R miles of (x, y), nearest first, measured like nearest. */
+    @Override
+    public List<Point> withinRadius(double x, double y, double r) {
+        double scale = Math.cos(Math.toRadians(y));
+        double bound = (r / MILES_PER_DEGREE) * (r / MILES_PER_DEGREE);
+        List<Point> found = new ArrayList<>();
+        withinRadius(root, x, y, scale, bound, found);
+        found.sort(Comparator.comparingDouble(p -> squaredDistance(p, x, y, scale)));
+        return found;
+    }
+
+    private void withinRadius(Node n, double x, double y, double scale, double bound, List<Point> found) {
+        if (n == null) {
+            return;
+        }
+        visited += 1;
+        if (squaredDistance(n.point, x, y, scale) <= bound) {
+            found.add(n.point);
+        }
+        double diff = n.XBased ? x - n.point.getX() : y - n.point.getY();
+        double lineDistance = n.XBased ? diff * scale : diff;
+        withinRadius(diff > 0 ? n.right : n.left, x, y, scale, bound, found);
+        if (lineDistance * lineDistance <= bound) {
+            withinRadius(diff > 0 ? n.left : n.right, x, y, scale, bound, found);
+        }
+    }
+
+    /* the squared distance from P to (x, y) in degrees of latitude, with longitudes scaled
+    * by SCALE, the cosine of the latitude of the query. */
+    static double squaredDistance(Point p, double x, double y, double scale) {
+        double dx = (p.getX() - x) * scale;
+        double dy = p.getY() - y;
+        return dx * dx + dy * dy;
+    }
+
+    /* returns the number of nodes visited by nearest searches so far. The count is not
+    * synchronized, so it is only approximate while several threads search at once. */
+    public long visitedNodes() {
+        return visited;
     }
 
     public static void main(String[] args) {
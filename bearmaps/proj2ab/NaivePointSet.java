@@ -1,12 +1,14 @@
 package bearmaps.proj2ab;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /* this class is a naive linear-time solution to solve
 * the problem of finding the closest point to get a given coordinate.
 *
 * linear-time solution: will traverse the set of Points. */
-public class NaivePointSet implements PointSet {
+public class NaivePointSet implements RangePointSet {
 
     private List<Point> points;
 
@@ -30,6 +32,33 @@ public class NaivePointSet implements PointSet {
         return nearest;
     }
 
+    /* returns the k points nearest to (x, y), keeping the k best in a bounded max-heap.
+    * Distances are measured on the projection of KdTree, see RangePointSet. */
+    @Override
+    public List<Point> kNearest(double x, double y, int k) {
+        double scale = Math.cos(Math.toRadians(y));
+        BoundedMaxHeap<Point> heap = new BoundedMaxHeap<>(Math.min(k, points.size()));
+        for (Point p : points) {
+            heap.offer(p, KdTree.squaredDistance(p, x, y, scale));
+        }
+        return heap.toSortedList();
+    }
+
+    /* returns the points within r miles of (x, y), nearest first, measured like kNearest. */
+    @Override
+    public List<Point> withinRadius(double x, double y, double r) {
+        double scale = Math.cos(Math.toRadians(y));
+        double bound = (r / KdTree.MILES_PER_DEGREE) * (r / KdTree.MILES_PER_DEGREE);
+        List<Point> found = new ArrayList<>();
+        for (Point p : points) {
+            if (KdTree.squaredDistance(p, x, y, scale) <= bound) {
+                found.add(p);
+            }
+        }
+        found.sort(Comparator.comparingDouble(p -> KdTree.squaredDistance(p, x, y, scale)));
+        return found;
+    }
+
     public static void main(String[] args) {
         Point p1 = new Point(1.1, 2.2);
         Point p2 = new Point(3.3, 4.4);
@@ -0,0 +1,241 @@
+package bearmaps.proj2ab;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Pairing heap implementation of IndexedMinPQ.
+ * The heap is a tree in which every node is no smaller than its parent, kept as a first
+ * child and a right sibling per node. Adding an item and lowering a priority link one tree
+ * below the root and take O(1) time; a lowered node is cut from its parent together with
+ * its subtree first. Removing the smallest item links its children in pairs from left to
+ * right, then the pairs from right to left, which takes amortized O(log n) time.
+ *
+ * The nodes are the items themselves: the links and the priority of item i sit at index i
+ * of int and double arrays, so a handle is the vertex number and nothing is allocated per
+ * node. Raising a priority removes the item and adds it again.
+ */
+public class PairingHeapMinPQ implements IndexedMinPQ {
+
+    private static final int NONE = -1;
+    private static final int INIT_CAPACITY = 16;
+
+    private double[] keys;     // keys[item] = priority of item
+    private int[] child;       // child[item] = first child of item
+    private int[] next;        // next[item] = right sibling of item
+    private int[] prev;        // prev[item] = left sibling of item, or its parent if it is a first child
+    private boolean[] queued;  // queued[item] = item is in the PQ
+    private int root = NONE;
+    private int size;
+    private int[] pairs = new int[INIT_CAPACITY]; // roots of the first merging pass
+
+    /* an empty PQ for the items 0 to INIT_CAPACITY - 1; it grows as larger items are added. */
+    public PairingHeapMinPQ() {
+        this(INIT_CAPACITY);
+    }
+
+    /* an empty PQ for the items 0 to capacity - 1. */
+    public PairingHeapMinPQ(int capacity) {
+        keys = new double[capacity];
+        child = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        queued = new boolean[capacity];
+    }
+
+    @Override
+    public void ensureCapacity(int n) {
+        if (n <= queued.length) {
+            return;
+        }
+        int capacity = Math.max(n, queued.length * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        child = Arrays.copyOf(child, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        queued = Arrays.copyOf(queued, capacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /* return true if the heap is empty. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(int item) {
+        return item >= 0 && item < queued.length && queued[item];
+    }
+
+    /* insert an item with given priority value. */
+    @Override
+    public void add(int item, double priority) {
+        if (item < 0) {
+            throw new IllegalArgumentException("Item must not be negative.");
+        }
+        ensureCapacity(item + 1);
+        if (queued[item]) {
+            throw new IllegalArgumentException("Item already exists.");
+        }
+        queued[item] = true;
+        size += 1;
+        insert(item, priority);
+    }
+
+    @Override
+    public int smallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("No such items exist.");
+        }
+        return root;
+    }
+
+    @Override
+    public double smallestPriority() {
+        return keys[smallest()];
+    }
+
+    @Override
+    public int popSmallest() {
+        int smallest = smallest();
+        queued[smallest] = false;
+        size -= 1;
+        root = mergePairs(child[smallest]);
+        return smallest;
+    }
+
+    @Override
+    public void changePriority(int item, double priority) {
+        if (!contains(item)) {
+            throw new NoSuchElementException("Item does not exist.");
+        }
+        if (priority < keys[item]) {
+            keys[item] = priority;
+            if (item != root) {
+                cut(item);
+                root = link(root, item);
+            }
+        } else if (priority > keys[item]) {
+            int children = mergePairs(child[item]);
+            if (item == root) {
+                root = children;
+            } else {
+                cut(item);
+                if (children != NONE) {
+                    root = link(root, children);
+                }
+            }
+            insert(item, priority);
+        }
+    }
+
+    @Override
+    public double priority(int item) {
+        if (!contains(item)) {
+            throw new NoSuchElementException("Item does not exist.");
+        }
+        return keys[item];
+    }
+
+    /* removes all items in time proportional to the number of items. */
+    @Override
+    public void clear() {
+        int n = 0;
+        if (root != NONE) {
+            pairs = ensureLength(pairs, size);
+            pairs[n] = root;
+            n += 1;
+        }
+        while (n > 0) {
+            n -= 1;
+            int item = pairs[n];
+            queued[item] = false;
+            for (int c = child[item]; c != NONE; c = next[c]) {
+                pairs[n] = c;
+                n += 1;
+            }
+        }
+        root = NONE;
+        size = 0;
+    }
+
+    /* makes ITEM, which is queued but in no tree, a single node tree and links it to the root. */
+    private void insert(int item, double priority) {
+        keys[item] = priority;
+        child[item] = NONE;
+        next[item] = NONE;
+        prev[item] = NONE;
+        root = root == NONE ? item : link(root, item);
+    }
+
+    /* links the trees rooted at A and B and returns the root of the result. */
+    private int link(int a, int b) {
+        if (keys[b] < keys[a]) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        int first = child[a];
+        next[b] = first;
+        if (first != NONE) {
+            prev[first] = b;
+        }
+        prev[b] = a;
+        child[a] = b;
+        return a;
+    }
+
+    /* detaches the subtree of ITEM, which is not the root, from its parent. */
+    private void cut(int item) {
+        int p = prev[item];
+        if (child[p] == item) {
+            child[p] = next[item];
+        } else {
+            next[p] = next[item];
+        }
+        if (next[item] != NONE) {
+            prev[next[item]] = p;
+        }
+        next[item] = NONE;
+        prev[item] = NONE;
+    }
+
+    /* links the sibling list starting at FIRST into one tree and returns its root, or NONE. */
+    private int mergePairs(int first) {
+        int n = 0;
+        int x = first;
+        while (x != NONE) {
+            int a = x;
+            int b = next[a];
+            x = b == NONE ? NONE : next[b];
+            next[a] = NONE;
+            prev[a] = NONE;
+            if (b != NONE) {
+                next[b] = NONE;
+                prev[b] = NONE;
+                a = link(a, b);
+            }
+            if (n == pairs.length) {
+                pairs = Arrays.copyOf(pairs, n * 2);
+            }
+            pairs[n] = a;
+            n += 1;
+        }
+        if (n == 0) {
+            return NONE;
+        }
+        int result = pairs[n - 1];
+        for (int i = n - 2; i >= 0; i -= 1) {
+            result = link(pairs[i], result);
+        }
+        return result;
+    }
+
+    private static int[] ensureLength(int[] a, int n) {
+        return n <= a.length ? a : Arrays.copyOf(a, Math.max(n, a.length * 2));
+    }
+}
@@ -0,0 +1,265 @@
+package bearmaps.proj2ab;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Radix heap implementation of IndexedMinPQ, for monotone workloads such as Dijkstra's
+ * algorithm and A* with a consistent heuristic, where no item is ever added with a smaller
+ * priority than the last one removed.
+ *
+ * Priorities are turned into 64-bit keys that sort like the doubles. Bucket i holds the
+ * entries whose key first differs from the last minimum key in bit i - 1, bucket 0 those
+ * equal to it. Removing the smallest item takes it from bucket 0 if possible; otherwise
+ * the lowest non-empty bucket is emptied into lower ones around its smallest key. Every
+ * entry only moves down, at most 64 times, and there are no comparisons between entries
+ * apart from finding that smallest key.
+ *
+ * changePriority does not move the old entry; it adds a new one and the old one is
+ * skipped once it turns up as stale. Priorities may fall below the last removed one by a
+ * rounding error (1e-9 relative), in which case they are raised to it; anything lower
+ * is rejected.
+ */
+public class RadixHeapMinPQ implements IndexedMinPQ {
+
+    private static final int BUCKETS = 65;
+    private static final int INIT_CAPACITY = 16;
+    private static final int INIT_BUCKET_CAPACITY = 4;
+    private static final double TOLERANCE = 1e-9;
+
+    private final int[][] bucketItems = new int[BUCKETS][];
+    private final long[][] bucketKeys = new long[BUCKETS][];
+    private final int[] bucketSize = new int[BUCKETS];
+
+    private boolean[] queued;     // queued[item] = item is in the PQ
+    private double[] priorities;  // priorities[item] = current priority of a queued item
+    private long[] keys;          // keys[item] = key of the live entry of a queued item
+    private int size;
+    private long last;            // the last minimum key, found by smallest()
+    private double lastPriority;
+
+    /* an empty PQ for the items 0 to INIT_CAPACITY - 1; it grows as larger items are added. */
+    public RadixHeapMinPQ() {
+        this(INIT_CAPACITY);
+    }
+
+    /* an empty PQ for the items 0 to capacity - 1. */
+    public RadixHeapMinPQ(int capacity) {
+        queued = new boolean[capacity];
+        priorities = new double[capacity];
+        keys = new long[capacity];
+        for (int b = 0; b < BUCKETS; b += 1) {
+            bucketItems[b] = new int[INIT_BUCKET_CAPACITY];
+            bucketKeys[b] = new long[INIT_BUCKET_CAPACITY];
+        }
+        clear();
+    }
+
+    @Override
+    public void ensureCapacity(int n) {
+        if (n <= queued.length) {
+            return;
+        }
+        int capacity = Math.max(n, queued.length * 2);
+        queued = Arrays.copyOf(queued, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /* return true if the heap is empty. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(int item) {
+        return item >= 0 && item < queued.length && queued[item];
+    }
+
+    /* insert an item with given priority value. */
+    @Override
+    public void add(int item, double priority) {
+        if (item < 0) {
+            throw new IllegalArgumentException("Item must not be negative.");
+        }
+        ensureCapacity(item + 1);
+        if (queued[item]) {
+            throw new IllegalArgumentException("Item already exists.");
+        }
+        queued[item] = true;
+        size += 1;
+        insert(item, priority);
+    }
+
+    @Override
+    public void changePriority(int item, double priority) {
+        if (!contains(item)) {
+            throw new NoSuchElementException("Item does not exist.");
+        }
+        if (priority != priorities[item]) {
+            insert(item, priority); // the old entry becomes stale
+        }
+    }
+
+    @Override
+    public double priority(int item) {
+        if (!contains(item)) {
+            throw new NoSuchElementException("Item does not exist.");
+        }
+        return priorities[item];
+    }
+
+    @Override
+    public int smallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("No such items exist.");
+        }
+        fillBucketZero();
+        return bucketItems[0][bucketSize[0] - 1];
+    }
+
+    @Override
+    public double smallestPriority() {
+        return priorities[smallest()];
+    }
+
+    @Override
+    public int popSmallest() {
+        int smallest = smallest();
+        bucketSize[0] -= 1;
+        queued[smallest] = false;
+        size -= 1;
+        lastPriority = priorities[smallest];
+        return smallest;
+    }
+
+    /* removes all items in time proportional to the number of entries. */
+    @Override
+    public void clear() {
+        for (int b = 0; b < BUCKETS; b += 1) {
+            for (int i = 0; i < bucketSize[b]; i += 1) {
+                queued[bucketItems[b][i]] = false;
+            }
+            bucketSize[b] = 0;
+        }
+        size = 0;
+        lastPriority = Double.NEGATIVE_INFINITY;
+        last = key(lastPriority);
+    }
+
+    /* adds the live entry of ITEM, whose new priority is PRIORITY. */
+    private void insert(int item, double priority) {
+        if (Double.isNaN(priority)) {
+            throw new IllegalArgumentException("Priority must be a number.");
+        }
+        double clamped = priority;
+        if (priority < lastPriority) {
+            if (lastPriority - priority > TOLERANCE * Math.max(1, Math.abs(lastPriority))) {
+                throw new IllegalArgumentException("Priority is smaller than the last removed priority.");
+            }
+            clamped = lastPriority;
+        }
+        long key = key(clamped);
+        if (Long.compareUnsigned(key, last) < 0) {
+            rebucket(key);
+        }
+        priorities[item] = priority;
+        keys[item] = key;
+        push(bucket(key), item, key);
+    }
+
+    /* makes KEY the last key and sorts all live entries into their buckets again. Only
+    * needed when an item is added below the smallest priority seen by smallest() but not
+    * yet removed, which a search that removes what it peeks at never does. */
+    private void rebucket(long key) {
+        int n = 0;
+        for (int b = 0; b < BUCKETS; b += 1) {
+            n += bucketSize[b];
+        }
+        int[] items = new int[n];
+        long[] bkeys = new long[n];
+        n = 0;
+        for (int b = 0; b < BUCKETS; b += 1) {
+            for (int i = 0; i < bucketSize[b]; i += 1) {
+                if (!isStale(bucketItems[b][i], bucketKeys[b][i])) {
+                    items[n] = bucketItems[b][i];
+                    bkeys[n] = bucketKeys[b][i];
+                    n += 1;
+                }
+            }
+            bucketSize[b] = 0;
+        }
+        last = key;
+        for (int i = 0; i < n; i += 1) {
+            push(bucket(bkeys[i]), items[i], bkeys[i]);
+        }
+    }
+
+    /* makes sure the top of bucket 0 is a live entry. Assumes the PQ is not empty. */
+    private void fillBucketZero() {
+        while (true) {
+            int top = bucketSize[0] - 1;
+            while (top >= 0 && isStale(bucketItems[0][top], bucketKeys[0][top])) {
+                top -= 1;
+            }
+            bucketSize[0] = top + 1;
+            if (bucketSize[0] > 0) {
+                return;
+            }
+            int b = 1;
+            while (bucketSize[b] == 0) {
+                b += 1;
+            }
+            int[] items = bucketItems[b];
+            long[] bkeys = bucketKeys[b];
+            int n = bucketSize[b];
+            bucketSize[b] = 0;
+            long min = -1; // largest unsigned key
+            for (int i = 0; i < n; i += 1) {
+                if (!isStale(items[i], bkeys[i]) && Long.compareUnsigned(bkeys[i], min) < 0) {
+                    min = bkeys[i];
+                }
+            }
+            if (min == -1) {
+                continue; // only stale entries
+            }
+            last = min;
+            for (int i = 0; i < n; i += 1) {
+                if (!isStale(items[i], bkeys[i])) {
+                    push(bucket(bkeys[i]), items[i], bkeys[i]);
+                }
+            }
+        }
+    }
+
+    private boolean isStale(int item, long key) {
+        return !queued[item] || keys[item] != key;
+    }
+
+    private void push(int b, int item, long key) {
+        int n = bucketSize[b];
+        if (n == bucketItems[b].length) {
+            bucketItems[b] = Arrays.copyOf(bucketItems[b], n * 2);
+            bucketKeys[b] = Arrays.copyOf(bucketKeys[b], n * 2);
+        }
+        bucketItems[b][n] = item;
+        bucketKeys[b][n] = key;
+        bucketSize[b] = n + 1;
+    }
+
+    /* the bucket of KEY: one more than the highest bit in which it differs from the last key. */
+    private int bucket(long key) {
+        return 64 - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    /* maps PRIORITY to a key whose unsigned order is the order of the doubles. */
+    private static long key(double priority) {
+        long bits = Double.doubleToLongBits(priority + 0.0); // + 0.0 turns -0.0 into 0.0
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+}
@@ -0,0 +1,17 @@
+package bearmaps.proj2ab;
+
+import java.util.List;
+
+/* A PointSet that also finds the points near (x, y). Distances are in miles, taking x as
+* the longitude and y as the latitude, on an equirectangular projection scaled at the
+* latitude of the query, as in KdTree.nearest. Over a few miles they are close to those of
+* Point.distance but not equal, so points about as far as the k-th nearest one or the
+* radius may be ordered or included differently than by Point.distance. */
+public interface RangePointSet extends PointSet {
+
+    /* Returns the K points nearest to (x, y), nearest first, or all points if there are fewer. */
+    List<Point> kNearest(double x, double y, int k);
+
+    /* Returns the points within distance R of (x, y), nearest first. */
+    List<Point> withinRadius(double x, double y, double r);
+}
@@ -0,0 +1,227 @@
+package bearmaps.proj2ab.benchmark;
+
+import bearmaps.proj2ab.ArrayHeapMinPQ;
+import bearmaps.proj2ab.ArraylistHeapMinPQ;
+import bearmaps.proj2ab.DoubleMapPQ;
+import bearmaps.proj2ab.ExtrinsicMinPQ;
+import bearmaps.proj2ab.IndexedHeapMinPQ;
+import bearmaps.proj2ab.PairingHeapMinPQ;
+import bearmaps.proj2ab.RadixHeapMinPQ;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the ExtrinsicMinPQ implementations, replacing the single Stopwatch
+ * run in ArrayHeapMinPQTest.main. Every combination of implementation, size and priority
+ * pattern is measured; main() adds the GC profiler, which reports the allocation rate
+ * (gc.alloc.rate.norm is bytes allocated per operation).
+ *
+ * add and removeSmallest time a whole fill or drain of SIZE items, so divide by SIZE for
+ * the cost of one operation. contains and changePriority time one operation on a full PQ.
+ * Items are boxed once up front, so boxing is not part of the measurement.
+ *
+ * The full matrix takes hours; pick a part of it with JMH's -p option, e.g.
+ *     ExtrinsicMinPQBenchmark -p size=1000000 -p pattern=RANDOM
+ * Needs jmh-core, and jmh-generator-annprocess when compiling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class ExtrinsicMinPQBenchmark {
+
+    /** How the priorities of the items are chosen. */
+    public enum Pattern {
+        /** Uniformly random priorities. */
+        RANDOM,
+        /** Increasing priorities: adds never move, priority changes sink to the bottom. */
+        SORTED,
+        /** Decreasing priorities: every add and every priority change goes to the root. */
+        REVERSED,
+        /** All priorities equal. */
+        EQUAL
+    }
+
+    /** Number of items probed by contains and changePriority, a power of two. */
+    private static final int PROBES = 1 << 16;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"ArrayHeapMinPQ", "ArrayHeapUnchecked", "ArraylistHeapMinPQ", "DoubleMapPQ", "IndexedHeapMinPQ", "RadixHeapMinPQ",
+        "PairingHeapMinPQ"})
+    String implementation;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "EQUAL"})
+    Pattern pattern;
+
+    private Integer[] items;
+    private double[] priorities;
+    private Integer[] probes;        // half of them are not in the PQ
+    private Integer[] changed;       // items whose priority is changed
+    private double[] newPriorities;
+
+    /** A full PQ for contains and changePriority. */
+    @State(Scope.Thread)
+    public static class FullPQ {
+        private ExtrinsicMinPQ<Integer> pq;
+        private int next;
+
+        /* refilled every iteration, since RadixHeapMinPQ keeps the entries left behind by
+        * changePriority until they are removed. */
+        @Setup(Level.Iteration)
+        public void fill(ExtrinsicMinPQBenchmark benchmark) {
+            pq = benchmark.fill();
+            next = 0;
+        }
+    }
+
+    /** A full PQ for removeSmallest, refilled before every drain. */
+    @State(Scope.Thread)
+    public static class DrainingPQ {
+        private ExtrinsicMinPQ<Integer> pq;
+
+        @Setup(Level.Invocation)
+        public void fill(ExtrinsicMinPQBenchmark benchmark) {
+            pq = benchmark.fill();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createItems() {
+        Random random = new Random(61);
+        items = new Integer[size * 2];
+        for (int i = 0; i < items.length; i += 1) {
+            items[i] = i;
+        }
+        priorities = new double[size];
+        for (int i = 0; i < size; i += 1) {
+            priorities[i] = priority(i, random);
+        }
+        probes = new Integer[PROBES];
+        changed = new Integer[PROBES];
+        newPriorities = new double[PROBES];
+        for (int i = 0; i < PROBES; i += 1) {
+            probes[i] = items[random.nextInt(size * 2)];
+            changed[i] = items[random.nextInt(size)];
+            newPriorities[i] = newPriority(i, random);
+        }
+    }
+
+    private double priority(int i, Random random) {
+        switch (pattern) {
+            case SORTED:
+                return i;
+            case REVERSED:
+                return size - i;
+            case EQUAL:
+                return 1;
+            case RANDOM:
+            default:
+                return random.nextDouble() * size;
+        }
+    }
+
+    /* priorities for changePriority, following the pattern relative to the items already in the PQ. */
+    private double newPriority(int i, Random random) {
+        switch (pattern) {
+            case SORTED:
+                return size + i;
+            case REVERSED:
+                return -i;
+            case EQUAL:
+                return 1;
+            case RANDOM:
+            default:
+                return random.nextDouble() * size;
+        }
+    }
+
+    private ExtrinsicMinPQ<Integer> create() {
+        switch (implementation) {
+            case "ArrayHeapMinPQ":
+                return new ArrayHeapMinPQ<>();
+            case "ArrayHeapUnchecked":
+                return new ArrayHeapMinPQ<>(16, false);
+            case "ArraylistHeapMinPQ":
+                return new ArraylistHeapMinPQ<>();
+            case "DoubleMapPQ":
+                return new DoubleMapPQ<>();
+            case "IndexedHeapMinPQ":
+                return new IndexedHeapMinPQ(size);
+            case "RadixHeapMinPQ":
+                return new RadixHeapMinPQ(size);
+            case "PairingHeapMinPQ":
+                return new PairingHeapMinPQ(size);
+            default:
+                throw new IllegalArgumentException("Unknown implementation " + implementation);
+        }
+    }
+
+    private ExtrinsicMinPQ<Integer> fill() {
+        ExtrinsicMinPQ<Integer> pq = create();
+        for (int i = 0; i < size; i += 1) {
+            pq.add(items[i], priorities[i]);
+        }
+        return pq;
+    }
+
+    /* SIZE adds into an empty PQ. */
+    @Benchmark
+    public ExtrinsicMinPQ<Integer> add() {
+        return fill();
+    }
+
+    /* SIZE - 1 removals from a full PQ; ArrayHeapMinPQ cannot remove its last item. */
+    @Benchmark
+    public int removeSmallest(DrainingPQ draining) {
+        int sum = 0;
+        while (draining.pq.size() > 1) {
+            sum += draining.pq.removeSmallest();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public boolean contains(FullPQ full) {
+        full.next = (full.next + 1) & (PROBES - 1);
+        return full.pq.contains(probes[full.next]);
+    }
+
+    @Benchmark
+    public ExtrinsicMinPQ<Integer> changePriority(FullPQ full) {
+        full.next = (full.next + 1) & (PROBES - 1);
+        full.pq.changePriority(changed[full.next], newPriorities[full.next]);
+        return full.pq;
+    }
+
+    /* runs the benchmarks with the GC profiler; any JMH command line options can be added. */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ExtrinsicMinPQBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -1,11 +1,19 @@
 package bearmaps.proj2c;
 
+import bearmaps.hw4.Landmarks;
+import bearmaps.hw4.ch.ContractionHierarchy;
+import bearmaps.hw4.ch.ContractionHierarchyBuilder;
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.hw4.streetmap.EdgeGrid;
 import bearmaps.hw4.streetmap.Node;
 import bearmaps.hw4.streetmap.StreetMapGraph;
-import bearmaps.proj2ab.KdTree;
-import bearmaps.proj2ab.Point;
+import bearmaps.proj2ab.FlatKdTree;
+import bearmaps.proj2ab.IntArrayList;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An augmented graph that is more powerful that a standard StreetMapGraph.
@@ -15,25 +23,39 @@ import java.util.*;
  */
 public class AugmentedStreetMapGraph extends StreetMapGraph {
 
-    Map<Point, Node> map;
-    List<Point> points;
+    /** Number of landmarks used by the ALT heuristic. */
+    private static final int NUM_LANDMARKS = 16;
+    /** Number of routes kept by the route cache; -Dbearmaps.route.cacheSize. */
+    private static final int ROUTE_CACHE_SIZE = Integer.getInteger("bearmaps.route.cacheSize", 1024);
+
 //    TST trie = new TST();
     TrieSet trie = new TrieSet();
     Map<String, Set<Node>> cleanToNodes;
-    KdTree kdTree;
+    FlatKdTree kdTree; // nodes with neighbors, by (lon, lat)
+    String dbPath;
+    volatile ContractionHierarchy ch; // null until the background build is done
+    private final AtomicBoolean chStarted = new AtomicBoolean();
+    Landmarks landmarks;
+    EdgeGrid edgeGrid;
+    RouteCache routeCache = new RouteCache(ROUTE_CACHE_SIZE);
 
     public AugmentedStreetMapGraph(String dbPath) {
         super(dbPath);
+        this.dbPath = dbPath;
         List<Node> graphNodes = this.getNodes();
-        map = new HashMap<>(); // mapping Point to Node
-        points = new ArrayList<>(); // record nodes with neighbors in the point format
+        // record nodes with neighbors as primitive coordinates and ids
+        double[] lons = new double[graphNodes.size()];
+        double[] lats = new double[graphNodes.size()];
+        long[] ids = new long[graphNodes.size()];
+        int count = 0;
         cleanToNodes = new HashMap<>(); // mapping 'clean' name to Nodes
 
         for (Node n : graphNodes) {
             if (this.neighbors(n.id()).size() != 0) {
-                Point p = new Point(n.lon(), n.lat());
-                map.put(p, n);
-                points.add(p);
+                lons[count] = n.lon();
+                lats[count] = n.lat();
+                ids[count] = n.id();
+                count += 1;
             }
 
             // multiple nodes can share the same clean name, we use a hashset to record these nodes.
@@ -49,7 +71,8 @@ public class AugmentedStreetMapGraph extends StreetMapGraph {
                 }
             }
         }
-        kdTree = new KdTree(points);
+        kdTree = new FlatKdTree(Arrays.copyOf(lons, count), Arrays.copyOf(lats, count),
+                Arrays.copyOf(ids, count));
     }
 
     /**
@@ -60,10 +83,136 @@ public class AugmentedStreetMapGraph extends StreetMapGraph {
      * @return The id of the node in the graph closest to the target.
      */
     public long closest(double lon, double lat) {
-        Point nearest = kdTree.nearest(lon, lat);
-        return map.get(nearest).id();
+        return kdTree.nearestId(lon, lat);
+    }
+
+    /**
+     * Returns the K vertices closest to the given longitude and latitude, closest first,
+     * for example to offer the snapping candidates on both sides of a divided road.
+     * @param lon The target longitude.
+     * @param lat The target latitude.
+     * @param k The number of vertices.
+     * @return The ids of the closest nodes, fewer than K only if the graph is smaller.
+     */
+    public long[] kNearest(double lon, double lat, int k) {
+        return ids(kdTree.kNearestIndices(lon, lat, k));
+    }
+
+    /**
+     * Returns the vertices within a distance of the given longitude and latitude, closest first.
+     * @param lon The target longitude.
+     * @param lat The target latitude.
+     * @param miles The largest straight-line distance, in miles.
+     * @return The ids of the nodes within that distance.
+     */
+    public long[] withinRadius(double lon, double lat, double miles) {
+        return ids(kdTree.withinRadiusIndices(lon, lat, miles));
+    }
+
+    /**
+     * Returns the vertices inside a bounding box, for example the nodes visible in a viewport.
+     * @param ullon The longitude of the upper left corner.
+     * @param ullat The latitude of the upper left corner.
+     * @param lrlon The longitude of the lower right corner.
+     * @param lrlat The latitude of the lower right corner.
+     * @return The ids of the nodes inside the box, in no particular order.
+     */
+    public long[] nodesInBox(double ullon, double ullat, double lrlon, double lrlat) {
+        IntArrayList slots = new IntArrayList();
+        kdTree.range(ullon, lrlat, lrlon, ullat, slots);
+        return ids(slots.toArray());
+    }
+
+    /**
+     * Returns the road segments crossing a bounding box, for example those to draw in a
+     * viewport. A segment that can be driven both ways is returned once.
+     * @param ullon The longitude of the upper left corner.
+     * @param ullat The latitude of the upper left corner.
+     * @param lrlon The longitude of the lower right corner.
+     * @param lrlat The latitude of the lower right corner.
+     * @return The ids of the end nodes of the segments, the two of segment i at 2i and 2i + 1.
+     */
+    public long[] edgesInBox(double ullon, double ullat, double lrlon, double lrlat) {
+        CompactGraph graph = compact();
+        IntArrayList edges = new IntArrayList();
+        edgeGrid().query(ullon, lrlat, lrlon, ullat, edges);
+        long[] result = new long[2 * edges.size()];
+        for (int i = 0; i < edges.size(); i += 1) {
+            int e = edges.get(i);
+            result[2 * i] = graph.id(graph.edgeSource(e));
+            result[2 * i + 1] = graph.id(graph.target(e));
+        }
+        return result;
     }
 
+    private long[] ids(int[] slots) {
+        long[] result = new long[slots.length];
+        for (int i = 0; i < slots.length; i += 1) {
+            result[i] = kdTree.id(slots[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the contraction hierarchy of this graph, or null while it is not ready.
+     * The first call starts preparing it on a background thread: it is loaded from the file
+     * written by ContractionHierarchyBuilder next to the OSM file (dbPath + ".ch"), or built
+     * in memory if there is no such file for this graph. Building takes minutes on a large
+     * map; Router.solve runs A* instead until the hierarchy is ready.
+     * @return The contraction hierarchy, or null if it is still being loaded or built.
+     */
+    public ContractionHierarchy contractionHierarchy() {
+        ContractionHierarchy result = ch;
+        if (result == null && chStarted.compareAndSet(false, true)) {
+            Thread builder = new Thread(() -> ch = loadOrBuildContractionHierarchy(), "contraction-hierarchy");
+            builder.setDaemon(true);
+            builder.start();
+        }
+        return result;
+    }
+
+    private ContractionHierarchy loadOrBuildContractionHierarchy() {
+        String chPath = dbPath + ".ch";
+        if (new File(chPath).exists()) {
+            try {
+                return ContractionHierarchy.load(chPath, compact());
+            } catch (IOException e) {
+                System.err.println("Could not load the contraction hierarchy from " + chPath + " ("
+                        + e + "), building it again.");
+            }
+        }
+        return ContractionHierarchyBuilder.build(compact());
+    }
+
+    /**
+     * Returns the landmarks of the ALT heuristic, selected and precomputed on first use.
+     * @return The landmarks.
+     */
+    public synchronized Landmarks landmarks() {
+        if (landmarks == null) {
+            landmarks = Landmarks.select(compact(), NUM_LANDMARKS);
+        }
+        return landmarks;
+    }
+
+    /**
+     * Returns the grid of road segments used by edgesInBox, built on first use.
+     * @return The edge grid.
+     */
+    public synchronized EdgeGrid edgeGrid() {
+        if (edgeGrid == null) {
+            edgeGrid = new EdgeGrid(compact());
+        }
+        return edgeGrid;
+    }
+
+    /**
+     * Returns the cache of routes solved on this graph.
+     * @return The route cache.
+     */
+    public RouteCache routeCache() {
+        return routeCache;
+    }
 
     /**
      * For Project Part III (gold points)
@@ -0,0 +1,144 @@
+package bearmaps.proj2c;
+
+import bearmaps.hw4.DeltaStepping;
+import bearmaps.hw4.OneToAllDijkstra;
+import bearmaps.hw4.SearchSpace;
+import bearmaps.hw4.SearchSpacePool;
+import bearmaps.hw4.streetmap.CompactGraph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Road distances between many origins and many destinations.
+ * Every point is snapped to its closest node, then one Dijkstra sweep is run per origin,
+ * stopping as soon as all the destination nodes are settled. When there are fewer
+ * destinations than origins the sweeps run backwards from the destinations instead, so the
+ * number of sweeps is always the smaller of the two. Sweeps are independent and run in
+ * parallel, each borrowing its SearchSpace from the worker thread's SearchSpacePool. With
+ * fewer sweeps than threads that would leave threads idle, so the sweeps then run one at a
+ * time, each one a parallel DeltaStepping search.
+ */
+public class DistanceMatrix {
+
+    private final int rows;
+    private final int cols;
+    private final long[] originIds;
+    private final long[] destinationIds;
+    private final double[] distances;
+
+    private DistanceMatrix(long[] originIds, long[] destinationIds, double[] distances) {
+        this.rows = originIds.length;
+        this.cols = destinationIds.length;
+        this.originIds = originIds;
+        this.destinationIds = destinationIds;
+        this.distances = distances;
+    }
+
+    /**
+     * Computes the matrix between ORIGINS and DESTINATIONS, each given as {lon, lat} pairs.
+     * @param g The graph to route on.
+     * @param origins The starting points, one {lon, lat} pair per row of the matrix.
+     * @param destinations The end points, one {lon, lat} pair per column of the matrix.
+     * @return The matrix.
+     */
+    public static DistanceMatrix compute(AugmentedStreetMapGraph g, double[][] origins, double[][] destinations) {
+        CompactGraph graph = g.compact();
+        long[] originIds = snap(g, origins);
+        long[] destinationIds = snap(g, destinations);
+        int rows = originIds.length;
+        int cols = destinationIds.length;
+        double[] distances = new double[rows * cols];
+
+        boolean reverse = cols < rows;
+        int[] sources = indices(graph, reverse ? destinationIds : originIds);
+        int[] targets = indices(graph, reverse ? originIds : destinationIds);
+        boolean[] isTarget = new boolean[graph.size()];
+        int count = 0;
+        for (int t : targets) {
+            if (!isTarget[t]) {
+                isTarget[t] = true;
+                count += 1;
+            }
+        }
+        int distinctTargets = count;
+
+        if (DeltaStepping.isParallel() && sources.length < ForkJoinPool.getCommonPoolParallelism()) {
+            double delta = DeltaStepping.defaultDelta(graph);
+            for (int i = 0; i < sources.length; i += 1) {
+                double[] distTo = DeltaStepping.run(graph, sources[i], reverse, targets, delta);
+                for (int j = 0; j < targets.length; j += 1) {
+                    if (reverse) {
+                        distances[j * cols + i] = distTo[targets[j]];
+                    } else {
+                        distances[i * cols + j] = distTo[targets[j]];
+                    }
+                }
+            }
+            return new DistanceMatrix(originIds, destinationIds, distances);
+        }
+        IntStream.range(0, sources.length).parallel().forEach(i -> {
+            SearchSpace space = SearchSpacePool.acquire();
+            try {
+                OneToAllDijkstra.run(graph, sources[i], reverse, isTarget, distinctTargets, space);
+                for (int j = 0; j < targets.length; j += 1) {
+                    double dist = space.distTo(targets[j]);
+                    if (reverse) {
+                        distances[j * cols + i] = dist;
+                    } else {
+                        distances[i * cols + j] = dist;
+                    }
+                }
+            } finally {
+                SearchSpacePool.release(space);
+            }
+        });
+        return new DistanceMatrix(originIds, destinationIds, distances);
+    }
+
+    private static long[] snap(AugmentedStreetMapGraph g, double[][] points) {
+        long[] ids = new long[points.length];
+        for (int i = 0; i < points.length; i += 1) {
+            ids[i] = g.closest(points[i][0], points[i][1]);
+        }
+        return ids;
+    }
+
+    private static int[] indices(CompactGraph graph, long[] ids) {
+        int[] result = new int[ids.length];
+        for (int i = 0; i < ids.length; i += 1) {
+            result[i] = graph.index(ids[i]);
+        }
+        return result;
+    }
+
+    /** Returns the number of origins. */
+    public int rows() {
+        return rows;
+    }
+
+    /** Returns the number of destinations. */
+    public int cols() {
+        return cols;
+    }
+
+    /** Returns the road distance from origin ROW to destination COL, or infinity if there is no route. */
+    public double distance(int row, int col) {
+        return distances[row * cols + col];
+    }
+
+    /** Returns all distances in row-major order. The array is not copied. */
+    public double[] distances() {
+        return distances;
+    }
+
+    /** Returns the node each origin was snapped to. */
+    public long[] originIds() {
+        return originIds;
+    }
+
+    /** Returns the node each destination was snapped to. */
+    public long[] destinationIds() {
+        return destinationIds;
+    }
+}
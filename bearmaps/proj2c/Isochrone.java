@@ -0,0 +1,164 @@
+package bearmaps.proj2c;
+
+import bearmaps.hw4.DeltaStepping;
+import bearmaps.hw4.OneToAllDijkstra;
+import bearmaps.hw4.SearchSpace;
+import bearmaps.hw4.SearchSpacePool;
+import bearmaps.hw4.streetmap.CompactGraph;
+
+import java.util.Arrays;
+
+/**
+ * The part of the map reachable from a point within a road distance budget.
+ * The point is snapped to its closest node and a single Dijkstra search runs from there with
+ * a pooled SearchSpace, stopping at the first vertex beyond the budget, so its cost depends
+ * on the size of the area and not on the size of the map. For budgets of many blocks on a
+ * machine with more than one core the search is a parallel DeltaStepping one instead; that
+ * one allocates and zeroes an array as large as the map, so it only pays for large areas.
+ * The outline is the convex hull of the reached nodes.
+ */
+public class Isochrone {
+    /* the budget, in mean edge weights, from which compute searches in parallel. */
+    private static final double PARALLEL_BLOCKS = 200;
+
+    private final long source;
+    private final long[] nodeIds;
+    private final double[] distances;
+    private final double[][] hull;
+
+    private Isochrone(long source, long[] nodeIds, double[] distances, double[][] hull) {
+        this.source = source;
+        this.nodeIds = nodeIds;
+        this.distances = distances;
+        this.hull = hull;
+    }
+
+    /**
+     * Computes the isochrone around the given point, in parallel if the budget is large and
+     * there is more than one core.
+     * @param g The graph to route on.
+     * @param lon The longitude of the center.
+     * @param lat The latitude of the center.
+     * @param budget The largest road distance, in miles.
+     * @return The isochrone.
+     */
+    public static Isochrone compute(AugmentedStreetMapGraph g, double lon, double lat, double budget) {
+        boolean parallel = DeltaStepping.isParallel()
+                && budget >= PARALLEL_BLOCKS * g.compact().meanWeight();
+        return compute(g, lon, lat, budget, parallel);
+    }
+
+    /**
+     * Computes the isochrone around the given point.
+     * @param g The graph to route on.
+     * @param lon The longitude of the center.
+     * @param lat The latitude of the center.
+     * @param budget The largest road distance, in miles.
+     * @param parallel Whether to search with DeltaStepping rather than Dijkstra.
+     * @return The isochrone.
+     */
+    public static Isochrone compute(AugmentedStreetMapGraph g, double lon, double lat, double budget,
+                                    boolean parallel) {
+        CompactGraph graph = g.compact();
+        long source = g.closest(lon, lat);
+        if (parallel) {
+            DeltaStepping.Reach reach = DeltaStepping.reach(graph, graph.index(source), false, budget,
+                    DeltaStepping.defaultDelta(graph));
+            int n = reach.size();
+            long[] nodeIds = new long[n];
+            double[] distances = new double[n];
+            int[] vertices = new int[n];
+            for (int i = 0; i < n; i += 1) {
+                vertices[i] = reach.vertex(i);
+                nodeIds[i] = graph.id(vertices[i]);
+                distances[i] = reach.distance(i);
+            }
+            return new Isochrone(source, nodeIds, distances, convexHull(graph, vertices));
+        }
+        SearchSpace space = SearchSpacePool.acquire();
+        try {
+            OneToAllDijkstra.run(graph, graph.index(source), false, budget, space);
+            int n = space.settledCount();
+            long[] nodeIds = new long[n];
+            double[] distances = new double[n];
+            int[] vertices = new int[n];
+            for (int i = 0; i < n; i += 1) {
+                int v = space.settledVertex(i);
+                vertices[i] = v;
+                nodeIds[i] = graph.id(v);
+                distances[i] = space.distTo(v);
+            }
+            return new Isochrone(source, nodeIds, distances, convexHull(graph, vertices));
+        } finally {
+            SearchSpacePool.release(space);
+        }
+    }
+
+    /* Andrew's monotone chain over the (lon, lat) positions of VERTICES. Returns the hull
+    * counterclockwise as {lon, lat} pairs, without repeating the first point. */
+    private static double[][] convexHull(CompactGraph graph, int[] vertices) {
+        int n = vertices.length;
+        Integer[] sorted = new Integer[n];
+        for (int i = 0; i < n; i += 1) {
+            sorted[i] = vertices[i];
+        }
+        Arrays.sort(sorted, (a, b) -> graph.lon(a) != graph.lon(b)
+                ? Double.compare(graph.lon(a), graph.lon(b))
+                : Double.compare(graph.lat(a), graph.lat(b)));
+        if (n < 3) {
+            double[][] points = new double[n][];
+            for (int i = 0; i < n; i += 1) {
+                points[i] = new double[]{graph.lon(sorted[i]), graph.lat(sorted[i])};
+            }
+            return points;
+        }
+
+        int[] hull = new int[2 * n];
+        int k = 0;
+        for (int i = 0; i < n; i += 1) { // lower hull
+            while (k >= 2 && cross(graph, hull[k - 2], hull[k - 1], sorted[i]) <= 0) {
+                k -= 1;
+            }
+            hull[k] = sorted[i];
+            k += 1;
+        }
+        for (int i = n - 2, lower = k + 1; i >= 0; i -= 1) { // upper hull
+            while (k >= lower && cross(graph, hull[k - 2], hull[k - 1], sorted[i]) <= 0) {
+                k -= 1;
+            }
+            hull[k] = sorted[i];
+            k += 1;
+        }
+        double[][] points = new double[k - 1][];
+        for (int i = 0; i < k - 1; i += 1) {
+            points[i] = new double[]{graph.lon(hull[i]), graph.lat(hull[i])};
+        }
+        return points;
+    }
+
+    /* positive if O, A, B turn counterclockwise. */
+    private static double cross(CompactGraph graph, int o, int a, int b) {
+        return (graph.lon(a) - graph.lon(o)) * (graph.lat(b) - graph.lat(o))
+                - (graph.lat(a) - graph.lat(o)) * (graph.lon(b) - graph.lon(o));
+    }
+
+    /** Returns the node the center was snapped to. */
+    public long source() {
+        return source;
+    }
+
+    /** Returns the reachable nodes, in increasing order of distance. */
+    public long[] nodeIds() {
+        return nodeIds;
+    }
+
+    /** Returns the road distance to each node of nodeIds(). */
+    public double[] distances() {
+        return distances;
+    }
+
+    /** Returns the convex hull of the reachable nodes as counterclockwise {lon, lat} pairs. */
+    public double[][] hull() {
+        return hull;
+    }
+}
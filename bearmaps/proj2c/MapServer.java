@@ -16,7 +16,8 @@ public class MapServer {
      */
     public static void main(String[] args) {
 
-        MapServerInitializer.initializeServer(APIRouteHandlerFactory.handlerMap);
+        MapServerInitializer.initializeServer(APIRouteHandlerFactory.handlerMap,
+                APIRouteHandlerFactory.postHandlerMap);
 
     }
 
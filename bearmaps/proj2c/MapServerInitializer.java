@@ -3,6 +3,7 @@ package bearmaps.proj2c;
 import bearmaps.proj2c.server.handler.APIRouteHandler;
 import bearmaps.proj2c.utils.Constants;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -20,6 +21,14 @@ public class MapServerInitializer {
      * Do not place it in the main function. Do not place initialization code anywhere else.
      **/
     public static void initializeServer(Map<String, APIRouteHandler> apiHandlers){
+        initializeServer(apiHandlers, new HashMap<>());
+    }
+
+    /**
+     * Same as above, also serving the handlers in POSTHANDLERS for POST requests.
+     **/
+    public static void initializeServer(Map<String, APIRouteHandler> apiHandlers,
+                                        Map<String, APIRouteHandler> postHandlers){
 
         Constants.SEMANTIC_STREET_GRAPH = new AugmentedStreetMapGraph(Constants.OSM_DB_PATH);
         staticFileLocation("/page");
@@ -39,6 +48,9 @@ public class MapServerInitializer {
             get("/"+apiRoute.getKey(), apiRoute.getValue());
             paths.add(apiRoute.getKey());
         }
+        for(Map.Entry<String, APIRouteHandler> apiRoute: postHandlers.entrySet()){
+            post("/"+apiRoute.getKey(), apiRoute.getValue());
+        }
 
 
     }
@@ -0,0 +1,111 @@
+package bearmaps.proj2c;
+
+import bearmaps.hw4.ShortestPathsSolver;
+import bearmaps.hw4.SolverOutcome;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The results of routing many (start, destination) pairs at once.
+ * Routes are solved on a fork-join pool: the index range is split in halves until pieces
+ * are small enough, and idle workers steal pieces from busy ones, so a few slow routes do
+ * not hold up the rest. Every worker shares the read-only graph and reuses the search
+ * arrays of its own thread through SearchSpacePool.
+ */
+public class RouteBatch {
+
+    /** Routes solved by one task without splitting further. */
+    private static final int LEAF_SIZE = 16;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final SolverOutcome[] outcomes;
+    private final double[] weights;
+    private final long[][] paths;
+
+    private RouteBatch(int size, boolean keepPaths) {
+        outcomes = new SolverOutcome[size];
+        weights = new double[size];
+        paths = keepPaths ? new long[size][] : null;
+    }
+
+    /**
+     * Routes every pair in ROUTES, each given as {start lon, start lat, dest lon, dest lat}.
+     * @param g The graph to use.
+     * @param routes The routes to solve.
+     * @param algorithm The search algorithm to use.
+     * @param keepPaths Whether to keep the paths, or only the outcomes and weights.
+     * @return The results, in the order of ROUTES.
+     */
+    static RouteBatch solve(AugmentedStreetMapGraph g, double[][] routes, Router.Algorithm algorithm,
+                            boolean keepPaths) {
+        RouteBatch batch = new RouteBatch(routes.length, keepPaths);
+        POOL.invoke(batch.new Task(g, routes, algorithm, 0, routes.length));
+        return batch;
+    }
+
+    private class Task extends RecursiveAction {
+        private final AugmentedStreetMapGraph g;
+        private final double[][] routes;
+        private final Router.Algorithm algorithm;
+        private final int lo;
+        private final int hi;
+
+        Task(AugmentedStreetMapGraph g, double[][] routes, Router.Algorithm algorithm, int lo, int hi) {
+            this.g = g;
+            this.routes = routes;
+            this.algorithm = algorithm;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > LEAF_SIZE) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Task(g, routes, algorithm, lo, mid), new Task(g, routes, algorithm, mid, hi));
+                return;
+            }
+            for (int i = lo; i < hi; i += 1) {
+                double[] r = routes[i];
+                long start = g.closest(r[0], r[1]);
+                long dest = g.closest(r[2], r[3]);
+                ShortestPathsSolver<Long> solver = Router.solve(g, start, dest, algorithm);
+                RouteVerifier.sample(g, start, dest, solver);
+                outcomes[i] = solver.outcome();
+                weights[i] = solver.outcome() == SolverOutcome.SOLVED ? solver.solutionWeight()
+                        : Double.POSITIVE_INFINITY;
+                if (paths != null) {
+                    List<Long> solution = solver.solution();
+                    long[] path = new long[solution.size()];
+                    for (int k = 0; k < path.length; k += 1) {
+                        path[k] = solution.get(k);
+                    }
+                    paths[i] = path;
+                }
+            }
+        }
+    }
+
+    /** Returns the number of routes. */
+    public int size() {
+        return outcomes.length;
+    }
+
+    /** Returns whether route I was SOLVED, UNSOLVABLE or ran out of time (TIMEOUT). */
+    public SolverOutcome outcome(int i) {
+        return outcomes[i];
+    }
+
+    /** Returns the length of route I in miles, or infinity if it was not solved. */
+    public double weight(int i) {
+        return weights[i];
+    }
+
+    /** Returns the node ids of route I, or null if the paths were not kept. */
+    public long[] path(int i) {
+        return paths == null ? null : paths[i];
+    }
+}
@@ -0,0 +1,147 @@
+package bearmaps.proj2c;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of routes, keyed by the snapped start and destination nodes
+ * and the algorithm that found the route.
+ * A popular pair of places is then answered by a map lookup instead of a search plus the
+ * directions computation. Each graph has its own cache, see AugmentedStreetMapGraph.routeCache.
+ * All methods are synchronized, so the cache can be shared by the server threads.
+ */
+public class RouteCache {
+
+    /**
+     * A solved route. Its lists are unmodifiable, since they are shared by everyone who hits
+     * the cache. The directions are only worked out the first time they are asked for, so
+     * callers that only need the path do not pay for them.
+     */
+    public static class Route {
+        private final List<Long> path;
+        private final double weight;
+        private final AugmentedStreetMapGraph graph;
+        private List<Router.NavigationDirection> directions;
+
+        /* a route of WEIGHT miles along PATH, whose directions are computed on GRAPH. */
+        public Route(List<Long> path, double weight, AugmentedStreetMapGraph graph) {
+            this.path = Collections.unmodifiableList(path);
+            this.weight = weight;
+            this.graph = graph;
+        }
+
+        /** Returns the node ids along the route; empty if there is no route. */
+        public List<Long> path() {
+            return path;
+        }
+
+        /** Returns the length of the route in miles. */
+        public double weight() {
+            return weight;
+        }
+
+        /** Returns the driving directions; empty if the route has fewer than two nodes. */
+        public synchronized List<Router.NavigationDirection> directions() {
+            if (directions == null) {
+                /* routeDirections consumes the list it is given */
+                List<Router.NavigationDirection> computed = Router.routeDirections(graph, new LinkedList<>(path));
+                directions = computed == null ? Collections.emptyList() : Collections.unmodifiableList(computed);
+            }
+            return directions;
+        }
+    }
+
+    private static final class Key {
+        private final long start;
+        private final long dest;
+        private final Router.Algorithm algorithm;
+
+        Key(long start, long dest, Router.Algorithm algorithm) {
+            this.start = start;
+            this.dest = dest;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return start == other.start && dest == other.dest && algorithm == other.algorithm;
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(start) * 31 + Long.hashCode(dest)) * 31 + algorithm.hashCode();
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Route> routes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /** Creates a cache holding at most CAPACITY routes; 0 disables caching. */
+    public RouteCache(int capacity) {
+        this.capacity = capacity;
+        routes = new LinkedHashMap<Key, Route>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Route> eldest) {
+                if (size() > RouteCache.this.capacity) {
+                    evictions += 1;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Returns the route from START to DEST cached for ALGORITHM, or null if it is not cached. */
+    public synchronized Route get(long start, long dest, Router.Algorithm algorithm) {
+        Route route = routes.get(new Key(start, dest, algorithm));
+        if (route == null) {
+            misses += 1;
+        } else {
+            hits += 1;
+        }
+        return route;
+    }
+
+    /**
+     * Caches ROUTE as the route ALGORITHM found from START to DEST, evicting the least
+     * recently used route if full.
+     */
+    public synchronized void put(long start, long dest, Router.Algorithm algorithm, Route route) {
+        if (capacity == 0) {
+            return;
+        }
+        routes.put(new Key(start, dest, algorithm), route);
+    }
+
+    /** Returns the number of cached routes. */
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    /** Removes every cached route. The counters are kept. */
+    public synchronized void clear() {
+        routes.clear();
+    }
+
+    /** Returns the "size", "capacity", "hits", "misses" and "evictions" of the cache. */
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("size", routes.size());
+        metrics.put("capacity", capacity);
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("evictions", evictions);
+        return metrics;
+    }
+}
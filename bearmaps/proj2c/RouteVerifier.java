@@ -0,0 +1,168 @@
+package bearmaps.proj2c;
+
+import bearmaps.hw4.ShortestPathsSolver;
+import bearmaps.hw4.SolverOutcome;
+import bearmaps.hw4.WeirdSolver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Cross-checks routes against the reference WeirdSolver.
+ * In OFF mode (the default) nothing is checked. In SAMPLE mode a fraction of the routes
+ * is re-solved by WeirdSolver on a background thread, so the request that produced the
+ * route never waits for the check; mismatching weights are logged and counted. A route on
+ * which either solver timed out is counted as a timeout and not compared, since the
+ * reference solver gets a longer time limit than Router. When the background queue is
+ * full, further samples are dropped rather than piling up.
+ *
+ * The mode can be set at startup with -Dbearmaps.verify=off|sample and
+ * -Dbearmaps.verify.rate=0.01, or at runtime with setMode. Invalid values are reported
+ * and replaced by the defaults, OFF and 0.01. The counters are served at /metrics.
+ */
+public class RouteVerifier {
+
+    /** Verification modes. */
+    public enum Mode {
+        /** Never run the reference solver. */
+        OFF,
+        /** Run the reference solver on a random fraction of the routes. */
+        SAMPLE
+    }
+
+    /** Two route weights closer than this are considered equal. */
+    private static final double EPSILON = 1e-9;
+    /** Time limit of the reference solver, in seconds. */
+    private static final double REFERENCE_TIMEOUT = 20;
+    /** Samples waiting for the background thread beyond this are dropped. */
+    private static final int MAX_PENDING = 64;
+
+    /** Fraction of routes verified in SAMPLE mode when -Dbearmaps.verify.rate is not given or invalid. */
+    private static final double DEFAULT_RATE = 0.01;
+
+    private static volatile Mode mode = parseMode(System.getProperty("bearmaps.verify", "off"));
+    private static volatile double sampleRate = parseRate(System.getProperty("bearmaps.verify.rate",
+            String.valueOf(DEFAULT_RATE)));
+
+    private static final AtomicLong SAMPLED = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong VERIFIED = new AtomicLong();
+    private static final AtomicLong MISMATCHES = new AtomicLong();
+    private static final AtomicLong TIMEOUTS = new AtomicLong();
+    private static final DoubleAdder SOLVER_SECONDS = new DoubleAdder();
+    private static final DoubleAdder REFERENCE_SECONDS = new DoubleAdder();
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING), r -> {
+                Thread t = new Thread(r, "route-verifier");
+                t.setDaemon(true);
+                return t;
+            }, (r, executor) -> DROPPED.incrementAndGet());
+
+    private RouteVerifier() {
+    }
+
+    /* the mode named by VALUE in any case, or OFF with a warning if there is no such mode. */
+    private static Mode parseMode(String value) {
+        try {
+            return Mode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown verification mode -Dbearmaps.verify=" + value + ", routes are not verified.");
+            return Mode.OFF;
+        }
+    }
+
+    /* the fraction in VALUE, or DEFAULT_RATE with a warning if it is not a number from 0 to 1. */
+    private static double parseRate(String value) {
+        try {
+            double rate = Double.parseDouble(value.trim());
+            if (rate >= 0 && rate <= 1) {
+                return rate;
+            }
+        } catch (NumberFormatException e) {
+            // warned below
+        }
+        System.err.println("Invalid sample rate -Dbearmaps.verify.rate=" + value + ", using " + DEFAULT_RATE + ".");
+        return DEFAULT_RATE;
+    }
+
+    /**
+     * Sets the verification mode.
+     * @param newMode OFF or SAMPLE.
+     * @param rate The fraction of routes to verify in SAMPLE mode, between 0 and 1.
+     * @throws IllegalArgumentException If NEWMODE is null or RATE is not between 0 and 1.
+     */
+    public static void setMode(Mode newMode, double rate) {
+        if (newMode == null) {
+            throw new IllegalArgumentException("Mode must not be null.");
+        }
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1, not " + rate + ".");
+        }
+        mode = newMode;
+        sampleRate = rate;
+    }
+
+    public static Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Possibly schedules a check of the route SOLVER found from START to DEST.
+     * Returns immediately in every mode.
+     */
+    public static void sample(AugmentedStreetMapGraph g, long start, long dest, ShortestPathsSolver<Long> solver) {
+        if (mode == Mode.OFF || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        SAMPLED.incrementAndGet();
+        SolverOutcome outcome = solver.outcome();
+        double weight = solver.solutionWeight();
+        double seconds = solver.explorationTime();
+        EXECUTOR.execute(() -> verify(g, start, dest, outcome, weight, seconds));
+    }
+
+    private static void verify(AugmentedStreetMapGraph g, long start, long dest,
+                               SolverOutcome outcome, double weight, double seconds) {
+        ShortestPathsSolver<Long> reference = new WeirdSolver<>(g, start, dest, REFERENCE_TIMEOUT);
+        SOLVER_SECONDS.add(seconds);
+        REFERENCE_SECONDS.add(reference.explorationTime());
+        if (outcome == SolverOutcome.TIMEOUT || reference.outcome() == SolverOutcome.TIMEOUT) {
+            TIMEOUTS.incrementAndGet();
+        } else if (outcome != reference.outcome()
+                || (outcome == SolverOutcome.SOLVED && Math.abs(weight - reference.solutionWeight()) >= EPSILON)) {
+            MISMATCHES.incrementAndGet();
+            System.err.println(String.format("Route mismatch %d -> %d: solver %s %.6f, reference %s %.6f",
+                    start, dest, outcome, weight, reference.outcome(), reference.solutionWeight()));
+        }
+        VERIFIED.incrementAndGet();
+    }
+
+    /**
+     * Returns the verification counters: "sampled" routes, "verified" routes (sampled ones
+     * the background thread got to), "mismatches" between verified routes on which both
+     * solvers finished, "timeouts" (verified routes on which either did not), "dropped"
+     * samples, and the summed
+     * "solver_seconds" and "reference_seconds" of the verified routes and their difference,
+     * "delta_seconds".
+     */
+    public static Map<String, Object> metrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("mode", mode.toString());
+        metrics.put("sampled", SAMPLED.get());
+        metrics.put("verified", VERIFIED.get());
+        metrics.put("mismatches", MISMATCHES.get());
+        metrics.put("timeouts", TIMEOUTS.get());
+        metrics.put("dropped", DROPPED.get());
+        metrics.put("solver_seconds", SOLVER_SECONDS.sum());
+        metrics.put("reference_seconds", REFERENCE_SECONDS.sum());
+        metrics.put("delta_seconds", REFERENCE_SECONDS.sum() - SOLVER_SECONDS.sum());
+        return metrics;
+    }
+}
@@ -1,9 +1,15 @@
 package bearmaps.proj2c;
 
-import bearmaps.hw4.AStarSolver;
+import bearmaps.hw4.BidirectionalAStarSolver;
+import bearmaps.hw4.IndexedAStarSolver;
+import bearmaps.hw4.SearchBudget;
+import bearmaps.hw4.SearchSpace;
+import bearmaps.hw4.SearchSpacePool;
 import bearmaps.hw4.ShortestPathsSolver;
+import bearmaps.hw4.SolverOutcome;
 import bearmaps.hw4.WeightedEdge;
-import bearmaps.hw4.WeirdSolver;
+import bearmaps.hw4.ch.ContractionHierarchy;
+import bearmaps.hw4.ch.ContractionHierarchySolver;
 
 import java.util.*;
 import java.util.regex.Matcher;
@@ -15,6 +21,30 @@ import java.util.regex.Pattern;
  */
 public class Router {
 
+    /** The shortest path algorithms shortestPath can run. */
+    public enum Algorithm {
+        /** A* from the start vertex towards the destination. */
+        ASTAR,
+        /** A* guided by landmark distances instead of the great-circle distance. */
+        ALT,
+        /** A* from both ends at once, meeting in the middle. */
+        BIDIRECTIONAL_ASTAR,
+        /** Upward searches on the precomputed contraction hierarchy. */
+        CONTRACTION_HIERARCHY
+    }
+
+    /** Seconds a route search may take before it gives up; -Dbearmaps.route.timeout. */
+    public static final double ROUTE_TIMEOUT =
+            Double.parseDouble(System.getProperty("bearmaps.route.timeout", "5"));
+    /** States a route search may dequeue before it gives up; -Dbearmaps.route.maxStates. */
+    public static final int ROUTE_MAX_STATES =
+            Integer.getInteger("bearmaps.route.maxStates", SearchBudget.UNLIMITED);
+
+    /** Returns a fresh budget with the default route limits. */
+    public static SearchBudget defaultBudget() {
+        return new SearchBudget(ROUTE_TIMEOUT, ROUTE_MAX_STATES);
+    }
+
     /**
      * Overloaded method for shortestPath that has flexibility to specify a solver
      * and returns a List of longs representing the shortest path from the node
@@ -28,11 +58,125 @@ public class Router {
      */
     public static List<Long> shortestPath(AugmentedStreetMapGraph g, double stlon, double stlat,
                                           double destlon, double destlat) {
-        Long startVertex = g.closest(stlon, stlat);
-        Long destVertex = g.closest(destlon, destlat);
-        ShortestPathsSolver<Long> solver = new AStarSolver<>(g, startVertex, destVertex, 20);
-        ShortestPathsSolver<Long> solverW = new WeirdSolver<>(g, startVertex, destVertex, 20); // used to verify the TestRouter result, test3 for 'shortestPaths' is initially incorrect.
-        return solver.solution();
+        return shortestPath(g, stlon, stlat, destlon, destlat, Algorithm.ASTAR);
+    }
+
+    /**
+     * Same as shortestPath above, but runs the given algorithm.
+     * @param algorithm The search algorithm to use.
+     * @return A list of node id's in the order visited on the shortest path.
+     */
+    public static List<Long> shortestPath(AugmentedStreetMapGraph g, double stlon, double stlat,
+                                          double destlon, double destlat, Algorithm algorithm) {
+        return shortestPath(g, stlon, stlat, destlon, destlat, algorithm, defaultBudget());
+    }
+
+    /**
+     * Same as shortestPath above, but stops searching once BUDGET is exhausted, in which
+     * case the returned list is empty.
+     * @param budget The limits of the search; cancel it to stop the search from another thread.
+     * @return A list of node id's in the order visited on the shortest path.
+     */
+    public static List<Long> shortestPath(AugmentedStreetMapGraph g, double stlon, double stlat,
+                                          double destlon, double destlat, Algorithm algorithm,
+                                          SearchBudget budget) {
+        return new ArrayList<>(route(g, stlon, stlat, destlon, destlat, algorithm, budget).path());
+    }
+
+    /**
+     * Returns the shortest route between the nodes closest to the two locations, together
+     * with its length and driving directions, which are only worked out when asked for.
+     * Routes are looked up in the graph's route cache first, under the algorithm that
+     * found them; solved and unsolvable routes are added to it, timed out ones are not.
+     * @param budget The limits of the search, if the route is not cached.
+     * @return The route. Its lists are shared with the cache and cannot be modified.
+     */
+    public static RouteCache.Route route(AugmentedStreetMapGraph g, double stlon, double stlat,
+                                         double destlon, double destlat, Algorithm algorithm,
+                                         SearchBudget budget) {
+        long startVertex = g.closest(stlon, stlat);
+        long destVertex = g.closest(destlon, destlat);
+        RouteCache cache = g.routeCache();
+        RouteCache.Route route = cache.get(startVertex, destVertex, algorithm);
+        if (route != null) {
+            return route;
+        }
+        ShortestPathsSolver<Long> solver = solve(g, startVertex, destVertex, algorithm, budget);
+        RouteVerifier.sample(g, startVertex, destVertex, solver);
+        route = new RouteCache.Route(solver.solution(), solver.solutionWeight(), g);
+        if (solver.outcome() != SolverOutcome.TIMEOUT) {
+            cache.put(startVertex, destVertex, algorithm, route);
+        }
+        return route;
+    }
+
+    /**
+     * Runs the given algorithm between two vertices of the graph.
+     * @param g The graph to use.
+     * @param startVertex The id of the start vertex.
+     * @param destVertex The id of the destination vertex.
+     * @param algorithm The search algorithm to use.
+     * @return The solver, holding the path and the search statistics.
+     */
+    public static ShortestPathsSolver<Long> solve(AugmentedStreetMapGraph g, long startVertex, long destVertex,
+                                                  Algorithm algorithm) {
+        return solve(g, startVertex, destVertex, algorithm, defaultBudget());
+    }
+
+    /**
+     * Same as solve above, within the limits of BUDGET. If the budget runs out the
+     * solver's outcome is TIMEOUT. CONTRACTION_HIERARCHY runs A* while the graph's
+     * hierarchy is still being built.
+     * @param budget The limits of the search.
+     * @return The solver, holding the path and the search statistics.
+     */
+    public static ShortestPathsSolver<Long> solve(AugmentedStreetMapGraph g, long startVertex, long destVertex,
+                                                  Algorithm algorithm, SearchBudget budget) {
+        /* borrow the search arrays for the duration of the search; the solver has copied
+         * its path out of them by the time the constructor returns. */
+        SearchSpace forward = SearchSpacePool.acquire();
+        SearchSpace backward = null;
+        try {
+            switch (algorithm) {
+                case CONTRACTION_HIERARCHY:
+                    ContractionHierarchy ch = g.contractionHierarchy();
+                    if (ch == null) { // still being built
+                        return new IndexedAStarSolver(g.compact(), startVertex, destVertex, budget, forward);
+                    }
+                    backward = SearchSpacePool.acquire();
+                    return new ContractionHierarchySolver(ch, startVertex, destVertex, budget, forward, backward);
+                case ALT:
+                    return new IndexedAStarSolver(g.compact(), startVertex, destVertex, budget, forward,
+                            g.landmarks());
+                case BIDIRECTIONAL_ASTAR:
+                    backward = SearchSpacePool.acquire();
+                    return new BidirectionalAStarSolver(g.compact(), startVertex, destVertex, budget,
+                            forward, backward);
+                case ASTAR:
+                default:
+                    return new IndexedAStarSolver(g.compact(), startVertex, destVertex, budget, forward);
+            }
+        } finally {
+            SearchSpacePool.release(forward);
+            if (backward != null) {
+                SearchSpacePool.release(backward);
+            }
+        }
+    }
+
+    /**
+     * Routes many (start, destination) pairs in parallel. Each route gets its own default
+     * budget, so one slow route cannot hold up the rest for long. Batches bypass the route
+     * cache, so that one large batch cannot evict the routes of interactive users.
+     * @param g The graph to use.
+     * @param routes The routes, each as {start lon, start lat, dest lon, dest lat}.
+     * @param algorithm The search algorithm to use.
+     * @param keepPaths Whether to keep the node ids of each path, or only the outcomes and lengths.
+     * @return The results, in the order of ROUTES.
+     */
+    public static RouteBatch shortestPaths(AugmentedStreetMapGraph g, double[][] routes, Algorithm algorithm,
+                                           boolean keepPaths) {
+        return RouteBatch.solve(g, routes, algorithm, keepPaths);
     }
 
     /**
@@ -20,9 +20,9 @@ import static spark.Spark.halt;
 public abstract class APIRouteHandler<Req, Res> implements Route {
 
     /** HTTP failed response. */
-    private static final int HALT_RESPONSE = 403;
+    protected static final int HALT_RESPONSE = 403;
 
-    private Gson gson;
+    protected Gson gson;
 
     public APIRouteHandler() {
         gson = new Gson();
@@ -16,13 +16,22 @@ public class APIRouteHandlerFactory {
 
     public static final Map<String, APIRouteHandler> handlerMap;
 
+    /** Paths that take a request body, served with POST instead of GET. */
+    public static final Map<String, APIRouteHandler> postHandlerMap;
+
     static {
         handlerMap = new HashMap<>();
         handlerMap.put("raster", new RasterAPIHandler());
         handlerMap.put("route", new RoutingAPIHandler());
         handlerMap.put("clear_route", new ClearRouteAPIHandler());
         handlerMap.put("search", new SearchAPIHandler());
+        handlerMap.put("matrix", new MatrixAPIHandler());
+        handlerMap.put("isochrone", new IsochroneAPIHandler());
+        handlerMap.put("metrics", new MetricsAPIHandler());
         handlerMap.put("", new RedirectAPIHandler());
+
+        postHandlerMap = new HashMap<>();
+        postHandlerMap.put("batch_route", new BatchRouteAPIHandler());
     }
 
 
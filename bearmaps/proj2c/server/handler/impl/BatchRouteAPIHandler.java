@@ -0,0 +1,88 @@
+package bearmaps.proj2c.server.handler.impl;
+
+import bearmaps.proj2c.RouteBatch;
+import bearmaps.proj2c.Router;
+import bearmaps.proj2c.server.handler.APIRouteHandler;
+import com.google.gson.JsonParseException;
+import spark.Request;
+import spark.Response;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static bearmaps.proj2c.utils.Constants.SEMANTIC_STREET_GRAPH;
+import static spark.Spark.halt;
+
+/**
+ * Handles POST requests that route many pairs of locations at once, e.g. replays of trip logs.
+ * The body is a JSON object:
+ * {"routes": [[start_lon, start_lat, end_lon, end_lat], ...], "algorithm": "ASTAR", "paths": false}
+ * where "algorithm" (any Router.Algorithm) and "paths" are optional.
+ */
+public class BatchRouteAPIHandler extends APIRouteHandler<BatchRouteAPIHandler.BatchRequest, List<Map<String, Object>>> {
+
+    /** Largest number of routes accepted in one request. */
+    private static final int MAX_ROUTES = 100000;
+
+    /** The JSON body of a batch request. */
+    static class BatchRequest {
+        double[][] routes;
+        String algorithm = Router.Algorithm.ASTAR.name();
+        boolean paths;
+    }
+
+    @Override
+    protected BatchRequest parseRequestParams(Request request) {
+        BatchRequest batch = null;
+        try {
+            batch = gson.fromJson(request.body(), BatchRequest.class);
+        } catch (JsonParseException e) {
+            halt(HALT_RESPONSE, "Incorrect request body - provide a JSON object.");
+        }
+        if (batch == null || batch.routes == null) {
+            halt(HALT_RESPONSE, "Request failed - routes missing.");
+        }
+        if (batch.routes.length > MAX_ROUTES) {
+            halt(HALT_RESPONSE, "Request failed - at most " + MAX_ROUTES + " routes allowed.");
+        }
+        for (double[] route : batch.routes) {
+            if (route == null || route.length != 4) {
+                halt(HALT_RESPONSE, "Incorrect parameters - every route needs 4 numbers.");
+            }
+        }
+        try {
+            Router.Algorithm.valueOf(batch.algorithm);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            halt(HALT_RESPONSE, "Incorrect parameters - unknown algorithm.");
+        }
+        return batch;
+    }
+
+    /**
+     * Solves all routes of the request in parallel.
+     * @param requestParams The routes.
+     * @param response Not used.
+     * @return One map per route, in request order: <br>
+     * "outcome" : String, SOLVED, UNSOLVABLE or TIMEOUT. <br>
+     * "distance" : Number, the length of the route in miles, or -1 if it was not solved. <br>
+     * "path" : the node ids of the route, only if "paths" was set in the request.
+     */
+    @Override
+    protected List<Map<String, Object>> processRequest(BatchRequest requestParams, Response response) {
+        RouteBatch batch = Router.shortestPaths(SEMANTIC_STREET_GRAPH, requestParams.routes,
+                Router.Algorithm.valueOf(requestParams.algorithm), requestParams.paths);
+        List<Map<String, Object>> result = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i += 1) {
+            Map<String, Object> route = new HashMap<>();
+            route.put("outcome", batch.outcome(i).toString());
+            route.put("distance", Double.isInfinite(batch.weight(i)) ? -1 : batch.weight(i));
+            if (requestParams.paths) {
+                route.put("path", batch.path(i));
+            }
+            result.add(route);
+        }
+        return result;
+    }
+}
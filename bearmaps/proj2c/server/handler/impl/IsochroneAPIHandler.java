@@ -0,0 +1,58 @@
+package bearmaps.proj2c.server.handler.impl;
+
+import bearmaps.proj2c.Isochrone;
+import bearmaps.proj2c.server.handler.APIRouteHandler;
+import spark.Request;
+import spark.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static bearmaps.proj2c.utils.Constants.SEMANTIC_STREET_GRAPH;
+import static spark.Spark.halt;
+
+/**
+ * Handles requests for everything reachable from a point within a road distance,
+ * e.g. /isochrone?lon=-122.26&amp;lat=37.87&amp;miles=1
+ */
+public class IsochroneAPIHandler extends APIRouteHandler<Map<String, Double>, Map<String, Object>> {
+
+    /**
+     * Each isochrone request to the server will have the following parameters
+     * as keys in the params map.<br>
+     * lon : center longitude,<br> lat : center latitude,<br>
+     * miles : the road distance budget.
+     **/
+    private static final String[] REQUIRED_ISOCHRONE_REQUEST_PARAMS = {"lon", "lat", "miles"};
+
+    @Override
+    protected Map<String, Double> parseRequestParams(Request request) {
+        Map<String, Double> params = getRequestParams(request, REQUIRED_ISOCHRONE_REQUEST_PARAMS);
+        if (!(params.get("miles") >= 0)) {
+            halt(HALT_RESPONSE, "Incorrect parameters - miles must not be negative.");
+        }
+        return params;
+    }
+
+    /**
+     * Computes the isochrone.
+     * @param requestParams The center and the budget.
+     * @param response Not used.
+     * @return A map of results for the front end as specified: <br>
+     * "source" : Number, the node the center was snapped to. <br>
+     * "node_ids" : the reachable nodes, nearest first. <br>
+     * "distances" : the road distance to each of them. <br>
+     * "hull" : the outline of the area, as counterclockwise [lon, lat] pairs.
+     */
+    @Override
+    protected Map<String, Object> processRequest(Map<String, Double> requestParams, Response response) {
+        Isochrone isochrone = Isochrone.compute(SEMANTIC_STREET_GRAPH,
+                requestParams.get("lon"), requestParams.get("lat"), requestParams.get("miles"));
+        Map<String, Object> result = new HashMap<>();
+        result.put("source", isochrone.source());
+        result.put("node_ids", isochrone.nodeIds());
+        result.put("distances", isochrone.distances());
+        result.put("hull", isochrone.hull());
+        return result;
+    }
+}
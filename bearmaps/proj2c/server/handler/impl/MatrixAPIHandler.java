@@ -0,0 +1,82 @@
+package bearmaps.proj2c.server.handler.impl;
+
+import bearmaps.proj2c.DistanceMatrix;
+import bearmaps.proj2c.server.handler.APIRouteHandler;
+import bearmaps.proj2c.utils.Tuple;
+import spark.Request;
+import spark.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static bearmaps.proj2c.utils.Constants.SEMANTIC_STREET_GRAPH;
+import static spark.Spark.halt;
+
+/**
+ * Handles requests for a table of road distances between many origins and destinations.
+ * Points are given as "lon,lat" pairs separated by semicolons, e.g.
+ * /matrix?origins=-122.26,37.87;-122.25,37.86&amp;destinations=-122.27,37.88
+ */
+public class MatrixAPIHandler extends APIRouteHandler<Tuple<double[][], double[][]>, Map<String, Object>> {
+
+    /** Largest number of origins, and of destinations, accepted in one request. */
+    private static final int MAX_POINTS = 1000;
+
+    @Override
+    protected Tuple<double[][], double[][]> parseRequestParams(Request request) {
+        return new Tuple<>(parsePoints(request.queryParams("origins")),
+                parsePoints(request.queryParams("destinations")));
+    }
+
+    private double[][] parsePoints(String param) {
+        if (param == null || param.isEmpty()) {
+            halt(HALT_RESPONSE, "Request failed - parameters missing.");
+        }
+        String[] pairs = param.split(";");
+        if (pairs.length > MAX_POINTS) {
+            halt(HALT_RESPONSE, "Request failed - at most " + MAX_POINTS + " points allowed.");
+        }
+        double[][] points = new double[pairs.length][];
+        for (int i = 0; i < pairs.length; i += 1) {
+            String[] lonLat = pairs[i].split(",");
+            if (lonLat.length != 2) {
+                halt(HALT_RESPONSE, "Incorrect parameters - provide lon,lat pairs.");
+            }
+            try {
+                points[i] = new double[]{Double.parseDouble(lonLat[0]), Double.parseDouble(lonLat[1])};
+            } catch (NumberFormatException e) {
+                halt(HALT_RESPONSE, "Incorrect parameters - provide numbers.");
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Computes the distance matrix.
+     * @param requestParams The origins and the destinations.
+     * @param response Not used.
+     * @return A map of results for the front end as specified: <br>
+     * "rows" : Number, the number of origins. <br>
+     * "cols" : Number, the number of destinations. <br>
+     * "origin_ids", "destination_ids" : the nodes the points were snapped to. <br>
+     * "distances" : the distances in miles, row by row; -1 where there is no route.
+     */
+    @Override
+    protected Map<String, Object> processRequest(Tuple<double[][], double[][]> requestParams, Response response) {
+        DistanceMatrix matrix = DistanceMatrix.compute(SEMANTIC_STREET_GRAPH,
+                requestParams.getFirst(), requestParams.getSecond());
+        double[] distances = matrix.distances().clone();
+        for (int i = 0; i < distances.length; i += 1) {
+            if (distances[i] == Double.POSITIVE_INFINITY) {
+                distances[i] = -1; // JSON has no infinity
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("rows", matrix.rows());
+        result.put("cols", matrix.cols());
+        result.put("origin_ids", matrix.originIds());
+        result.put("destination_ids", matrix.destinationIds());
+        result.put("distances", distances);
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+package bearmaps.proj2c.server.handler.impl;
+
+import bearmaps.proj2c.RouteVerifier;
+import bearmaps.proj2c.server.handler.APIRouteHandler;
+import spark.Request;
+import spark.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static bearmaps.proj2c.utils.Constants.SEMANTIC_STREET_GRAPH;
+
+/**
+ * Reports the server's counters, e.g. /metrics
+ */
+public class MetricsAPIHandler extends APIRouteHandler<Object, Map<String, Object>> {
+
+    @Override
+    protected Object parseRequestParams(Request request) {
+        return null;
+    }
+
+    /**
+     * Collects the counters.
+     * @param requestParams Not used.
+     * @param response Not used.
+     * @return A map of results for the front end as specified: <br>
+     * "route_cache" : the counters of the route cache, see RouteCache.metrics(). <br>
+     * "route_verifier" : the counters of RouteVerifier.metrics().
+     */
+    @Override
+    protected Map<String, Object> processRequest(Object requestParams, Response response) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("route_cache", SEMANTIC_STREET_GRAPH.routeCache().metrics());
+        result.put("route_verifier", RouteVerifier.metrics());
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package bearmaps.proj2c.server.handler.impl;
 
+import bearmaps.proj2c.RouteCache;
 import bearmaps.proj2c.Router;
 import bearmaps.proj2c.server.handler.APIRouteHandler;
 import spark.Request;
@@ -58,27 +59,27 @@ public class RoutingAPIHandler extends APIRouteHandler<Map<String, Double>, Map<
      */
     @Override
     protected Map<String, Object> processRequest(Map<String, Double> requestParams, Response response) {
-        List<Long> route = Router.shortestPath(
+        RouteCache.Route route = Router.route(
                 SEMANTIC_STREET_GRAPH,
                 requestParams.get("start_lon"), requestParams.get("start_lat"),
-                requestParams.get("end_lon"), requestParams.get("end_lat"));
-        ROUTE_LIST.addAll(route);
-        String directions = getDirectionsText();
+                requestParams.get("end_lon"), requestParams.get("end_lat"),
+                Router.Algorithm.ASTAR, Router.defaultBudget());
+        ROUTE_LIST.addAll(route.path());
+        String directions = getDirectionsText(route.directions());
 
         Map<String, Object> routeParams = new HashMap<>();
-        routeParams.put("routing_success", !route.isEmpty());
+        routeParams.put("routing_success", !route.path().isEmpty());
         routeParams.put("directions_success", directions.length() > 0);
         routeParams.put("directions", directions);
         return routeParams;
     }
 
     /**
-     * Takes the route of this MapServer and converts it into an HTML friendly
+     * Takes the directions of a route and converts them into an HTML friendly
      * String to be passed to the frontend.
      */
-    private String getDirectionsText() {
+    private String getDirectionsText(List<Router.NavigationDirection> directions) {
 
-        List<Router.NavigationDirection> directions = Router.routeDirections(SEMANTIC_STREET_GRAPH, ROUTE_LIST);
         if (directions == null || directions.isEmpty()) {
             return "";
         }
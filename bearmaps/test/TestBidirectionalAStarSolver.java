@@ -0,0 +1,63 @@
+package bearmaps.test;
+
+import bearmaps.hw4.BidirectionalAStarSolver;
+import bearmaps.hw4.SearchBudget;
+import bearmaps.hw4.SearchSpace;
+import bearmaps.hw4.SolverOutcome;
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.proj2ab.IndexedHeapMinPQ;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/** Compares BidirectionalAStarSolver with Dijkstra between all pairs of vertices of a small grid map. */
+public class TestBidirectionalAStarSolver {
+    private static CompactGraph graph;
+
+    @BeforeClass
+    public static void setUp() {
+        graph = TestGraphs.grid(7, 6, 23);
+    }
+
+    /* checks every pair, reusing FORWARD and BACKWARD for all of them. */
+    private static void checkAllPairs(SearchSpace forward, SearchSpace backward) {
+        for (int s = 0; s < graph.size(); s += 1) {
+            double[] expected = TestGraphs.dijkstra(graph, s, false);
+            for (int t = 0; t < graph.size(); t += 1) {
+                BidirectionalAStarSolver solver = new BidirectionalAStarSolver(graph, graph.id(s),
+                    graph.id(t), new SearchBudget(10), forward, backward);
+                String pair = graph.id(s) + " to " + graph.id(t);
+                if (expected[t] == Double.POSITIVE_INFINITY) {
+                    assertEquals(pair, SolverOutcome.UNSOLVABLE, solver.outcome());
+                    continue;
+                }
+                assertEquals(pair, SolverOutcome.SOLVED, solver.outcome());
+                assertEquals(pair, expected[t], solver.solutionWeight(), 1e-9);
+                List<Long> path = solver.solution();
+                assertEquals(pair, graph.id(s), (long) path.get(0));
+                assertEquals(pair, graph.id(t), (long) path.get(path.size() - 1));
+                assertEquals(pair, expected[t], TestGraphs.pathWeight(graph, path), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testLazyHeap() {
+        checkAllPairs(new SearchSpace(), new SearchSpace());
+    }
+
+    @Test
+    public void testIndexedQueue() {
+        checkAllPairs(new SearchSpace(0, new IndexedHeapMinPQ()), new SearchSpace(0, new IndexedHeapMinPQ()));
+    }
+
+    @Test
+    public void testUnknownVertex() {
+        BidirectionalAStarSolver solver = new BidirectionalAStarSolver(graph, 12345678L, graph.id(0), 10);
+        assertEquals(SolverOutcome.UNSOLVABLE, solver.outcome());
+        assertEquals(0, solver.solution().size());
+    }
+}
@@ -0,0 +1,88 @@
+package bearmaps.test;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the compressed sparse row layout of CompactGraph on a small grid map. */
+public class TestCompactGraph {
+    private static final int ROWS = 8;
+    private static final int COLS = 9;
+    private static CompactGraph graph;
+
+    @BeforeClass
+    public static void setUp() {
+        graph = TestGraphs.grid(ROWS, COLS, 5);
+    }
+
+    @Test
+    public void testIdsAndIndices() {
+        // every grid node, the two island nodes and the three named nodes
+        assertEquals(ROWS * COLS + 5, graph.size());
+        for (int v = 0; v < graph.size(); v += 1) {
+            assertEquals(v, graph.index(graph.id(v)));
+            if (v > 0) {
+                assertTrue(graph.id(v - 1) < graph.id(v));
+            }
+        }
+        assertEquals(-1, graph.index(12345678L));
+        assertEquals(0, graph.index(TestGraphs.LONELY_FIRST));
+        assertEquals(graph.size() - 1, graph.index(TestGraphs.lonelyLast(ROWS, COLS)));
+    }
+
+    @Test
+    public void testInEdgesMirrorOutEdges() {
+        int[] seen = new int[graph.edgeCount()];
+        for (int w = 0; w < graph.size(); w += 1) {
+            for (int i = graph.inStart(w); i < graph.inEnd(w); i += 1) {
+                int e = graph.inEdge(i);
+                assertEquals(w, graph.target(e));
+                assertTrue(e >= graph.outStart(graph.source(i)) && e < graph.outEnd(graph.source(i)));
+                seen[e] += 1;
+            }
+        }
+        for (int e = 0; e < graph.edgeCount(); e += 1) {
+            assertEquals("edge " + e, 1, seen[e]);
+        }
+        assertEquals(graph.edgeCount(), graph.inEnd(graph.size() - 1));
+        assertEquals(graph.edgeCount(), graph.outEnd(graph.size() - 1));
+    }
+
+    @Test
+    public void testEdgeSource() {
+        for (long id : new long[] {TestGraphs.LONELY_FIRST, TestGraphs.LONELY_MIDDLE,
+                                   TestGraphs.lonelyLast(ROWS, COLS)}) {
+            int v = graph.index(id);
+            assertEquals(graph.outStart(v), graph.outEnd(v));
+        }
+        for (int v = 0; v < graph.size(); v += 1) {
+            for (int e = graph.outStart(v); e < graph.outEnd(v); e += 1) {
+                assertEquals("edge " + e, v, graph.edgeSource(e));
+            }
+        }
+    }
+
+    @Test
+    public void testEdgeAndWeights() {
+        double total = 0;
+        double max = 0;
+        for (int v = 0; v < graph.size(); v += 1) {
+            for (int e = graph.outStart(v); e < graph.outEnd(v); e += 1) {
+                int w = graph.target(e);
+                assertEquals(graph.distance(v, w), graph.weight(e), 1e-12);
+                assertTrue(graph.weight(graph.edge(v, w)) <= graph.weight(e));
+                assertTrue("streets go both ways", graph.edge(w, v) != -1);
+                total += graph.weight(e);
+                max = Math.max(max, graph.weight(e));
+            }
+        }
+        assertEquals(max, graph.maxWeight(), 0);
+        assertEquals(total / graph.edgeCount(), graph.meanWeight(), 1e-12);
+        int island = graph.index(TestGraphs.ISLAND_A);
+        assertEquals(-1, graph.edge(island, graph.index(TestGraphs.gridId(COLS, 0, 0))));
+        assertEquals(-1, graph.edge(graph.index(TestGraphs.LONELY_MIDDLE), island));
+    }
+}
@@ -0,0 +1,100 @@
+package bearmaps.test;
+
+import bearmaps.hw4.SearchBudget;
+import bearmaps.hw4.SearchSpace;
+import bearmaps.hw4.SolverOutcome;
+import bearmaps.hw4.ch.ContractionHierarchy;
+import bearmaps.hw4.ch.ContractionHierarchyBuilder;
+import bearmaps.hw4.ch.ContractionHierarchySolver;
+import bearmaps.hw4.streetmap.CompactGraph;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Builds a ContractionHierarchy of a small grid map and compares CH queries with Dijkstra
+ * between all pairs of vertices, which covers the witness search, stall on demand and the
+ * unpacking of shortcuts. The same is checked on the hierarchy saved and loaded again.
+ */
+public class TestContractionHierarchy {
+    private static CompactGraph graph;
+    private static ContractionHierarchy ch;
+
+    @BeforeClass
+    public static void setUp() {
+        graph = TestGraphs.grid(10, 11, 31);
+        ch = ContractionHierarchyBuilder.build(graph);
+    }
+
+    /* checks every pair on HIERARCHY, reusing one pair of search spaces for all of them. */
+    private static void checkAllPairs(ContractionHierarchy hierarchy) {
+        SearchSpace forward = new SearchSpace();
+        SearchSpace backward = new SearchSpace();
+        for (int s = 0; s < graph.size(); s += 1) {
+            double[] expected = TestGraphs.dijkstra(graph, s, false);
+            for (int t = 0; t < graph.size(); t += 1) {
+                ContractionHierarchySolver solver = new ContractionHierarchySolver(hierarchy, graph.id(s),
+                    graph.id(t), new SearchBudget(10), forward, backward);
+                String pair = graph.id(s) + " to " + graph.id(t);
+                if (expected[t] == Double.POSITIVE_INFINITY) {
+                    assertEquals(pair, SolverOutcome.UNSOLVABLE, solver.outcome());
+                    continue;
+                }
+                assertEquals(pair, SolverOutcome.SOLVED, solver.outcome());
+                assertEquals(pair, expected[t], solver.solutionWeight(), 1e-9);
+                List<Long> path = solver.solution();
+                assertEquals(pair, graph.id(s), (long) path.get(0));
+                assertEquals(pair, graph.id(t), (long) path.get(path.size() - 1));
+                assertEquals(pair, expected[t], TestGraphs.pathWeight(graph, path), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testRanks() {
+        boolean[] used = new boolean[graph.size()];
+        for (int v = 0; v < graph.size(); v += 1) {
+            assertTrue(!used[ch.rank(v)]);
+            used[ch.rank(v)] = true;
+            for (int a = ch.upStart(v); a < ch.upEnd(v); a += 1) {
+                assertTrue(ch.rank(ch.upTarget(a)) > ch.rank(v));
+            }
+            for (int a = ch.downStart(v); a < ch.downEnd(v); a += 1) {
+                assertTrue(ch.rank(ch.downSource(a)) > ch.rank(v));
+            }
+        }
+    }
+
+    @Test
+    public void testAllPairs() {
+        checkAllPairs(ch);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File file = File.createTempFile("grid", ".ch");
+        file.deleteOnExit();
+        ch.save(file.getPath());
+        ContractionHierarchy loaded = ContractionHierarchy.load(file.getPath(), graph);
+        assertEquals(ch.arcCount(), loaded.arcCount());
+        for (int v = 0; v < graph.size(); v += 1) {
+            assertEquals(ch.rank(v), loaded.rank(v));
+            assertEquals(ch.upEnd(v) - ch.upStart(v), loaded.upEnd(v) - loaded.upStart(v));
+        }
+        checkAllPairs(loaded);
+
+        try {
+            ContractionHierarchy.load(file.getPath(), TestGraphs.grid(10, 12, 31));
+            fail("loaded a hierarchy built for another map");
+        } catch (IOException e) {
+            // expected: the other map has another column of vertices
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package bearmaps.test;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.proj2c.AugmentedStreetMapGraph;
+import bearmaps.proj2c.DistanceMatrix;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/** Compares DistanceMatrix with Dijkstra on a small grid map, sweeping forwards and backwards. */
+public class TestDistanceMatrix {
+    private static AugmentedStreetMapGraph g;
+    private static CompactGraph graph;
+
+    @BeforeClass
+    public static void setUp() {
+        g = new AugmentedStreetMapGraph(TestGraphs.gridFile(9, 8, 41));
+        graph = g.compact();
+    }
+
+    /* the {lon, lat} of N random vertices with edges, the first of them on the island. */
+    private static double[][] points(int n, Random random) {
+        double[][] points = new double[n][];
+        for (int i = 0; i < n; i += 1) {
+            int v = i == 0 ? graph.index(TestGraphs.ISLAND_A) : random.nextInt(graph.size());
+            while (graph.outStart(v) == graph.outEnd(v)) {
+                v = random.nextInt(graph.size());
+            }
+            points[i] = new double[] {graph.lon(v), graph.lat(v)};
+        }
+        return points;
+    }
+
+    private static void check(double[][] origins, double[][] destinations) {
+        DistanceMatrix matrix = DistanceMatrix.compute(g, origins, destinations);
+        assertEquals(origins.length, matrix.rows());
+        assertEquals(destinations.length, matrix.cols());
+        for (int r = 0; r < origins.length; r += 1) {
+            int s = graph.index(matrix.originIds()[r]);
+            assertEquals(origins[r][0], graph.lon(s), 0);
+            double[] expected = TestGraphs.dijkstra(graph, s, false);
+            for (int c = 0; c < destinations.length; c += 1) {
+                int t = graph.index(matrix.destinationIds()[c]);
+                assertEquals(destinations[c][1], graph.lat(t), 0);
+                assertEquals(r + ", " + c, expected[t], matrix.distance(r, c), 1e-9);
+                assertEquals(matrix.distance(r, c), matrix.distances()[r * matrix.cols() + c], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testFewerOrigins() {
+        Random random = new Random(1);
+        check(points(3, random), points(20, random));
+    }
+
+    @Test
+    public void testFewerDestinations() {
+        Random random = new Random(2);
+        check(points(20, random), points(3, random));
+    }
+
+    @Test
+    public void testRepeatedPoints() {
+        Random random = new Random(3);
+        double[][] points = points(6, random);
+        double[][] repeated = {points[1], points[2], points[1], points[0], points[2]};
+        check(repeated, points);
+        check(points, repeated);
+        check(repeated, repeated);
+    }
+}
@@ -0,0 +1,126 @@
+package bearmaps.test;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.hw4.streetmap.EdgeGrid;
+import bearmaps.proj2ab.IntArrayList;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Compares EdgeGrid queries with a scan of every edge on a small grid map. */
+public class TestEdgeGrid {
+    private static CompactGraph graph;
+    private static EdgeGrid grid;
+    private static double minLon;
+    private static double minLat;
+    private static double maxLon;
+    private static double maxLat;
+
+    @BeforeClass
+    public static void setUp() {
+        graph = TestGraphs.grid(11, 13, 97);
+        grid = new EdgeGrid(graph);
+        minLon = Double.POSITIVE_INFINITY;
+        minLat = Double.POSITIVE_INFINITY;
+        maxLon = Double.NEGATIVE_INFINITY;
+        maxLat = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < graph.size(); v += 1) {
+            minLon = Math.min(minLon, graph.lon(v));
+            minLat = Math.min(minLat, graph.lat(v));
+            maxLon = Math.max(maxLon, graph.lon(v));
+            maxLat = Math.max(maxLat, graph.lat(v));
+        }
+    }
+
+    /* the edges crossing the box, one of every two opposite edges, by scanning all edges. */
+    private static int[] scan(double x0, double y0, double x1, double y1) {
+        IntArrayList edges = new IntArrayList();
+        for (int v = 0; v < graph.size(); v += 1) {
+            for (int e = graph.outStart(v); e < graph.outEnd(v); e += 1) {
+                int w = graph.target(e);
+                boolean indexed = v < w || (v > w && graph.edge(w, v) == -1);
+                if (indexed && crosses(graph.lon(v), graph.lat(v), graph.lon(w), graph.lat(w), x0, y0, x1, y1)) {
+                    edges.add(e);
+                }
+            }
+        }
+        return edges.toArray();
+    }
+
+    private static int[] query(double x0, double y0, double x1, double y1) {
+        IntArrayList edges = new IntArrayList();
+        int count = grid.query(x0, y0, x1, y1, edges);
+        assertEquals(count, edges.size());
+        int[] result = edges.toArray();
+        Arrays.sort(result);
+        for (int i = 1; i < result.length; i += 1) {
+            assertTrue("no duplicates", result[i - 1] < result[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testRandomBoxes() {
+        Random random = new Random(19);
+        double width = maxLon - minLon;
+        double height = maxLat - minLat;
+        for (int i = 0; i < 500; i += 1) {
+            // from boxes within a single cell to boxes larger than the map
+            double size = Math.pow(10, -3 + 3.5 * random.nextDouble());
+            double x0 = minLon - 0.1 * width + 1.2 * width * random.nextDouble();
+            double y0 = minLat - 0.1 * height + 1.2 * height * random.nextDouble();
+            double x1 = x0 + size * width * random.nextDouble();
+            double y1 = y0 + size * height * random.nextDouble();
+            assertEquals("box " + i, Arrays.toString(scan(x0, y0, x1, y1)),
+                Arrays.toString(query(x0, y0, x1, y1)));
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        int all = scan(minLon, minLat, maxLon, maxLat).length;
+        assertTrue(all > 0);
+        assertEquals(all, query(minLon, minLat, maxLon, maxLat).length);
+        assertEquals(all, query(minLon - 1, minLat - 1, maxLon + 1, maxLat + 1).length);
+        assertEquals(0, query(maxLon + 1, maxLat + 1, maxLon + 2, maxLat + 2).length);
+        assertEquals("empty box", 0, query(maxLon, minLat, minLon, maxLat).length);
+        for (int v = 0; v < graph.size(); v += 17) { // boxes that are a single point
+            double x = graph.lon(v);
+            double y = graph.lat(v);
+            assertArrayEquals(scan(x, y, x, y), query(x, y, x, y));
+        }
+        int s = graph.index(TestGraphs.ISLAND_A);
+        int[] island = query(graph.lon(s), graph.lat(s), graph.lon(s), graph.lat(s));
+        assertEquals("opposite edges are indexed once", 1, island.length);
+    }
+
+    /* Liang-Barsky: true if the segment from (x0, y0) to (x1, y1) has a point in the box. */
+    private static boolean crosses(double x0, double y0, double x1, double y1,
+                                   double minX, double minY, double maxX, double maxY) {
+        double[] p = {x0 - x1, x1 - x0, y0 - y1, y1 - y0};
+        double[] q = {x0 - minX, maxX - x0, y0 - minY, maxY - y0};
+        double t0 = 0;
+        double t1 = 1;
+        for (int i = 0; i < 4; i += 1) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return false;
+                }
+                continue;
+            }
+            double t = q[i] / p[i];
+            if (p[i] < 0) {
+                t0 = Math.max(t0, t);
+            } else {
+                t1 = Math.min(t1, t);
+            }
+        }
+        return t0 <= t1;
+    }
+}
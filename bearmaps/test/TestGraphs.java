@@ -0,0 +1,165 @@
+package bearmaps.test;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.hw4.streetmap.StreetMapGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Small street maps for tests that must not depend on the map data, and a plain Dijkstra
+ * to check the searches against. The maps are written to temporary OSM files and read back
+ * by the same parser as the real map.
+ *
+ * A grid map has ROWS x COLS nodes about 60 m apart, moved a little at random, with ids
+ * 100 and up in row order. Each street between two grid neighbors is kept with probability
+ * 0.8 and a few diagonals are added, so routes have to go around blocks. Besides the grid
+ * there are two nodes joined only to each other (ids 10 and 11) and three named nodes with
+ * no streets (ids 5, 99 and one past the last grid node), which StreetMapGraph keeps as
+ * vertices without edges.
+ */
+public class TestGraphs {
+
+    /** Ids of the named nodes without streets. */
+    public static final long LONELY_FIRST = 5;
+    public static final long LONELY_MIDDLE = 99;
+    /** Ids of the two nodes apart from the grid. */
+    public static final long ISLAND_A = 10;
+    public static final long ISLAND_B = 11;
+
+    private static final double LAT0 = 37.87;
+    private static final double LON0 = -122.26;
+    private static final double STEP = 0.0006;
+
+    private TestGraphs() {
+    }
+
+    /** Returns the id of the grid node in row R and column C. */
+    public static long gridId(int cols, int r, int c) {
+        return 100 + (long) r * cols + c;
+    }
+
+    /** Returns the id of the named node past the last grid node. */
+    public static long lonelyLast(int rows, int cols) {
+        return gridId(cols, rows, 0);
+    }
+
+    /** Writes a grid map to a temporary file and returns its path. */
+    public static String gridFile(int rows, int cols, long seed) {
+        Random random = new Random(seed);
+        try {
+            File file = File.createTempFile("grid", ".osm.xml");
+            file.deleteOnExit();
+            try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+                out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+                out.println("<osm>");
+                for (int r = 0; r < rows; r += 1) {
+                    for (int c = 0; c < cols; c += 1) {
+                        double lat = LAT0 + r * STEP + (random.nextDouble() - 0.5) * STEP / 2;
+                        double lon = LON0 + c * STEP + (random.nextDouble() - 0.5) * STEP / 2;
+                        node(out, gridId(cols, r, c), lon, lat, null);
+                    }
+                }
+                node(out, ISLAND_A, LON0 - 0.01, LAT0 - 0.01, null);
+                node(out, ISLAND_B, LON0 - 0.0095, LAT0 - 0.0102, null);
+                node(out, LONELY_FIRST, LON0 - 0.002, LAT0 + 0.001, "First Cafe");
+                node(out, LONELY_MIDDLE, LON0 + 0.001, LAT0 - 0.002, "Middle Cafe");
+                node(out, lonelyLast(rows, cols), LON0 + cols * STEP, LAT0 + rows * STEP, "Last Cafe");
+
+                long way = 1;
+                way(out, way++, "Island Road", ISLAND_A, ISLAND_B);
+                for (int r = 0; r < rows; r += 1) {
+                    for (int c = 0; c < cols; c += 1) {
+                        if (c + 1 < cols && random.nextDouble() < 0.8) {
+                            way(out, way++, "Row " + r + " Street", gridId(cols, r, c), gridId(cols, r, c + 1));
+                        }
+                        if (r + 1 < rows && random.nextDouble() < 0.8) {
+                            way(out, way++, "Column " + c + " Avenue", gridId(cols, r, c),
+                                gridId(cols, r + 1, c));
+                        }
+                        if (r + 1 < rows && c + 1 < cols && random.nextDouble() < 0.1) {
+                            way(out, way++, null, gridId(cols, r, c), gridId(cols, r + 1, c + 1));
+                        }
+                    }
+                }
+                out.println("</osm>");
+            }
+            return file.getPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Returns the compact graph of a grid map. */
+    public static CompactGraph grid(int rows, int cols, long seed) {
+        return new StreetMapGraph(gridFile(rows, cols, seed)).compact();
+    }
+
+    private static void node(PrintWriter out, long id, double lon, double lat, String name) {
+        out.print("<node id=\"" + id + "\" lat=\"" + lat + "\" lon=\"" + lon + "\">");
+        if (name != null) {
+            out.print("<tag k=\"name\" v=\"" + name + "\"/>");
+        }
+        out.println("</node>");
+    }
+
+    private static void way(PrintWriter out, long id, String name, long from, long to) {
+        out.print("<way id=\"" + id + "\"><nd ref=\"" + from + "\"/><nd ref=\"" + to + "\"/>");
+        out.print("<tag k=\"highway\" v=\"residential\"/>");
+        if (name != null) {
+            out.print("<tag k=\"name\" v=\"" + name + "\"/>");
+        }
+        out.println("</way>");
+    }
+
+    /**
+     * Returns the distances from SOURCE to every vertex, infinity where there is no path,
+     * by textbook Dijkstra on a java.util.PriorityQueue. With REVERSE, the distances from
+     * every vertex to SOURCE.
+     */
+    public static double[] dijkstra(CompactGraph graph, int source, boolean reverse) {
+        double[] dist = new double[graph.size()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[source] = 0;
+        PriorityQueue<double[]> pq = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        pq.add(new double[] {0, source});
+        while (!pq.isEmpty()) {
+            double[] top = pq.poll();
+            int v = (int) top[1];
+            if (top[0] > dist[v]) {
+                continue;
+            }
+            int first = reverse ? graph.inStart(v) : graph.outStart(v);
+            int last = reverse ? graph.inEnd(v) : graph.outEnd(v);
+            for (int i = first; i < last; i += 1) {
+                int e = reverse ? graph.inEdge(i) : i;
+                int w = reverse ? graph.source(i) : graph.target(e);
+                double d = dist[v] + graph.weight(e);
+                if (d < dist[w]) {
+                    dist[w] = d;
+                    pq.add(new double[] {d, w});
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Returns the weight of PATH, a list of OSM ids, failing if two of them are not joined. */
+    public static double pathWeight(CompactGraph graph, List<Long> path) {
+        double weight = 0;
+        for (int i = 0; i + 1 < path.size(); i += 1) {
+            int e = graph.edge(graph.index(path.get(i)), graph.index(path.get(i + 1)));
+            assertTrue("No edge from " + path.get(i) + " to " + path.get(i + 1), e != -1);
+            weight += graph.weight(e);
+        }
+        return weight;
+    }
+}
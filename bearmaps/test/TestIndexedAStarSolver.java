@@ -0,0 +1,86 @@
+package bearmaps.test;
+
+import bearmaps.hw4.IndexedAStarSolver;
+import bearmaps.hw4.IndexedHeuristic;
+import bearmaps.hw4.Landmarks;
+import bearmaps.hw4.SearchBudget;
+import bearmaps.hw4.SearchSpace;
+import bearmaps.hw4.SolverOutcome;
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.proj2ab.IndexedHeapMinPQ;
+import bearmaps.proj2ab.RadixHeapMinPQ;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Compares IndexedAStarSolver with Dijkstra between all pairs of vertices of a small grid map. */
+public class TestIndexedAStarSolver {
+    private static CompactGraph graph;
+
+    @BeforeClass
+    public static void setUp() {
+        graph = TestGraphs.grid(6, 7, 11);
+    }
+
+    /* checks every pair, reusing SPACE for all of them. */
+    private static void checkAllPairs(SearchSpace space) {
+        checkAllPairs(space, graph::distance);
+    }
+
+    /* checks every pair guided by HEURISTIC, reusing SPACE for all of them. */
+    private static void checkAllPairs(SearchSpace space, IndexedHeuristic heuristic) {
+        for (int s = 0; s < graph.size(); s += 1) {
+            double[] expected = TestGraphs.dijkstra(graph, s, false);
+            for (int t = 0; t < graph.size(); t += 1) {
+                IndexedAStarSolver solver = new IndexedAStarSolver(graph, graph.id(s), graph.id(t),
+                    new SearchBudget(10), space, heuristic);
+                String pair = graph.id(s) + " to " + graph.id(t);
+                if (expected[t] == Double.POSITIVE_INFINITY) {
+                    assertEquals(pair, SolverOutcome.UNSOLVABLE, solver.outcome());
+                    continue;
+                }
+                assertEquals(pair, SolverOutcome.SOLVED, solver.outcome());
+                assertEquals(pair, expected[t], solver.solutionWeight(), 1e-9);
+                List<Long> path = solver.solution();
+                assertEquals(pair, graph.id(s), (long) path.get(0));
+                assertEquals(pair, graph.id(t), (long) path.get(path.size() - 1));
+                assertEquals(pair, expected[t], TestGraphs.pathWeight(graph, path), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testLazyHeap() {
+        checkAllPairs(new SearchSpace());
+    }
+
+    @Test
+    public void testIndexedQueues() {
+        checkAllPairs(new SearchSpace(0, new IndexedHeapMinPQ()));
+        checkAllPairs(new SearchSpace(0, new RadixHeapMinPQ()));
+    }
+
+    @Test
+    public void testLandmarks() {
+        Landmarks landmarks = Landmarks.select(graph, 4);
+        assertEquals(4, landmarks.size());
+        for (long id : landmarks.landmarkIds()) {
+            int v = graph.index(id);
+            assertTrue("landmarks are on the grid", graph.outEnd(v) - graph.outStart(v) > 0
+                && TestGraphs.dijkstra(graph, v, false)[graph.index(TestGraphs.gridId(7, 0, 0))]
+                   < Double.POSITIVE_INFINITY);
+        }
+        checkAllPairs(new SearchSpace(0, new IndexedHeapMinPQ()), landmarks);
+    }
+
+    @Test
+    public void testUnknownVertex() {
+        IndexedAStarSolver solver = new IndexedAStarSolver(graph, graph.id(0), 12345678L, 10);
+        assertEquals(SolverOutcome.UNSOLVABLE, solver.outcome());
+        assertEquals(0, solver.solution().size());
+    }
+}
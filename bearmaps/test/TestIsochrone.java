@@ -0,0 +1,121 @@
+package bearmaps.test;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.proj2c.AugmentedStreetMapGraph;
+import bearmaps.proj2c.Isochrone;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Compares Isochrone with Dijkstra on a small grid map and checks its convex hull. */
+public class TestIsochrone {
+    private static AugmentedStreetMapGraph g;
+    private static CompactGraph graph;
+
+    @BeforeClass
+    public static void setUp() {
+        g = new AugmentedStreetMapGraph(TestGraphs.gridFile(12, 10, 53));
+        graph = g.compact();
+    }
+
+    /* checks the isochrones of BUDGET miles around vertex S, by Dijkstra and by DeltaStepping. */
+    private static Isochrone check(int s, double budget) {
+        check(Isochrone.compute(g, graph.lon(s), graph.lat(s), budget, true), s, budget);
+        return check(Isochrone.compute(g, graph.lon(s), graph.lat(s), budget), s, budget);
+    }
+
+    private static Isochrone check(Isochrone isochrone, int s, double budget) {
+        assertEquals(graph.id(s), isochrone.source());
+        double[] expected = TestGraphs.dijkstra(graph, s, false);
+        long[] ids = isochrone.nodeIds();
+        double[] distances = isochrone.distances();
+        assertEquals(ids.length, distances.length);
+        assertEquals(graph.id(s), ids[0]);
+        assertEquals(0, distances[0], 0);
+        Set<Long> reached = new HashSet<>();
+        for (int i = 0; i < ids.length; i += 1) {
+            assertEquals(expected[graph.index(ids[i])], distances[i], 1e-9);
+            assertTrue(distances[i] <= budget);
+            assertTrue(i == 0 || distances[i - 1] <= distances[i]);
+            reached.add(ids[i]);
+        }
+        int within = 0;
+        for (double d : expected) {
+            within += d <= budget && d != Double.POSITIVE_INFINITY ? 1 : 0;
+        }
+        assertEquals(within, reached.size());
+        assertEquals(within, ids.length);
+        return isochrone;
+    }
+
+    @Test
+    public void testReachedNodes() {
+        double block = graph.meanWeight();
+        for (int s = 0; s < graph.size(); s += 7) {
+            if (graph.outStart(s) == graph.outEnd(s)) {
+                continue;
+            }
+            for (double budget : new double[] {0, block, 3 * block, 10 * block, Double.POSITIVE_INFINITY}) {
+                check(s, budget);
+            }
+        }
+    }
+
+    @Test
+    public void testHull() {
+        int s = graph.index(TestGraphs.gridId(10, 6, 5));
+        for (double budget : new double[] {2 * graph.meanWeight(), 5 * graph.meanWeight(),
+                                           Double.POSITIVE_INFINITY}) {
+            Isochrone isochrone = check(s, budget);
+            double[][] hull = isochrone.hull();
+            assertTrue(hull.length >= 3);
+            Set<Long> corners = new HashSet<>();
+            for (double[] corner : hull) {
+                corners.add(g.closest(corner[0], corner[1]));
+            }
+            for (long id : corners) {
+                assertTrue("corners are reached nodes", contains(isochrone.nodeIds(), id));
+            }
+            for (int i = 0; i < hull.length; i += 1) {
+                double[] a = hull[i];
+                double[] b = hull[(i + 1) % hull.length];
+                double[] c = hull[(i + 2) % hull.length];
+                assertTrue("hull turns left", cross(a, b, c) > 0);
+                for (long id : isochrone.nodeIds()) {
+                    int v = graph.index(id);
+                    assertTrue("node inside hull", cross(a, b, new double[] {graph.lon(v), graph.lat(v)}) >= -1e-15);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSmallAreas() {
+        int s = graph.index(TestGraphs.ISLAND_A);
+        Isochrone alone = check(s, 0);
+        assertEquals(1, alone.hull().length);
+        assertEquals(graph.lon(s), alone.hull()[0][0], 0);
+        Isochrone island = check(s, Double.POSITIVE_INFINITY);
+        assertEquals(2, island.nodeIds().length);
+        assertEquals(2, island.hull().length);
+    }
+
+    private static boolean contains(long[] ids, long id) {
+        for (long x : ids) {
+            if (x == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* positive if A, B, C turn counterclockwise. */
+    private static double cross(double[] a, double[] b, double[] c) {
+        return (b[0] - a[0]) * (c[1] - a[1]) - (b[1] - a[1]) * (c[0] - a[0]);
+    }
+}
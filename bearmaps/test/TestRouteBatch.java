@@ -0,0 +1,95 @@
+package bearmaps.test;
+
+import bearmaps.hw4.SolverOutcome;
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.proj2c.AugmentedStreetMapGraph;
+import bearmaps.proj2c.RouteBatch;
+import bearmaps.proj2c.Router;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/** Compares the routes of Router.shortestPaths with Dijkstra on a small grid map. */
+public class TestRouteBatch {
+    private static final int ROUTES = 150; // enough for the batch to be split between tasks
+    private static AugmentedStreetMapGraph g;
+    private static CompactGraph graph;
+
+    @BeforeClass
+    public static void setUp() {
+        g = new AugmentedStreetMapGraph(TestGraphs.gridFile(10, 10, 71));
+        graph = g.compact();
+    }
+
+    /* ROUTES random routes between vertices with edges; every tenth starts on the island. */
+    private static double[][] routes(Random random) {
+        List<Integer> vertices = new ArrayList<>();
+        for (int v = 0; v < graph.size(); v += 1) {
+            if (graph.outStart(v) < graph.outEnd(v)) {
+                vertices.add(v);
+            }
+        }
+        double[][] routes = new double[ROUTES][];
+        for (int i = 0; i < ROUTES; i += 1) {
+            int s = i % 10 == 0 ? graph.index(TestGraphs.ISLAND_A) : vertices.get(random.nextInt(vertices.size()));
+            int t = vertices.get(random.nextInt(vertices.size()));
+            routes[i] = new double[] {graph.lon(s), graph.lat(s), graph.lon(t), graph.lat(t)};
+        }
+        return routes;
+    }
+
+    private static void check(double[][] routes, Router.Algorithm algorithm, boolean keepPaths) {
+        RouteBatch batch = Router.shortestPaths(g, routes, algorithm, keepPaths);
+        assertEquals(routes.length, batch.size());
+        for (int i = 0; i < routes.length; i += 1) {
+            int s = graph.index(g.closest(routes[i][0], routes[i][1]));
+            int t = graph.index(g.closest(routes[i][2], routes[i][3]));
+            double expected = TestGraphs.dijkstra(graph, s, false)[t];
+            String route = algorithm + " route " + i;
+            if (expected == Double.POSITIVE_INFINITY) {
+                assertEquals(route, SolverOutcome.UNSOLVABLE, batch.outcome(i));
+                assertEquals(route, Double.POSITIVE_INFINITY, batch.weight(i), 0);
+                continue;
+            }
+            assertEquals(route, SolverOutcome.SOLVED, batch.outcome(i));
+            assertEquals(route, expected, batch.weight(i), 1e-9);
+            if (!keepPaths) {
+                assertNull(batch.path(i));
+                continue;
+            }
+            long[] path = batch.path(i);
+            List<Long> ids = new ArrayList<>();
+            for (long id : path) {
+                ids.add(id);
+            }
+            assertEquals(route, graph.id(s), path[0]);
+            assertEquals(route, graph.id(t), path[path.length - 1]);
+            assertEquals(route, expected, TestGraphs.pathWeight(graph, ids), 1e-9);
+        }
+    }
+
+    @Test
+    public void testAlgorithms() {
+        Random random = new Random(7);
+        for (Router.Algorithm algorithm : new Router.Algorithm[] {Router.Algorithm.ASTAR,
+                Router.Algorithm.ALT, Router.Algorithm.BIDIRECTIONAL_ASTAR}) {
+            check(routes(random), algorithm, true);
+        }
+    }
+
+    @Test
+    public void testWithoutPaths() {
+        check(routes(new Random(8)), Router.Algorithm.ASTAR, false);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, Router.shortestPaths(g, new double[0][], Router.Algorithm.ASTAR, true).size());
+    }
+}
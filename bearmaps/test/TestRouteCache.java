@@ -0,0 +1,135 @@
+package bearmaps.test;
+
+import bearmaps.hw4.streetmap.CompactGraph;
+import bearmaps.proj2c.AugmentedStreetMapGraph;
+import bearmaps.proj2c.RouteCache;
+import bearmaps.proj2c.Router;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/** Tests the LRU eviction and the counters of RouteCache, and how Router.route uses it. */
+public class TestRouteCache {
+    private static final Router.Algorithm ASTAR = Router.Algorithm.ASTAR;
+    private static AugmentedStreetMapGraph g;
+    private static CompactGraph graph;
+
+    @BeforeClass
+    public static void setUp() {
+        g = new AugmentedStreetMapGraph(TestGraphs.gridFile(8, 8, 83));
+        graph = g.compact();
+    }
+
+    private static RouteCache.Route route(long... ids) {
+        List<Long> path = new ArrayList<>();
+        for (long id : ids) {
+            path.add(id);
+        }
+        return new RouteCache.Route(path, ids.length, g);
+    }
+
+    private static void assertMetrics(RouteCache cache, int size, long hits, long misses, long evictions) {
+        Map<String, Object> metrics = cache.metrics();
+        assertEquals(size, metrics.get("size"));
+        assertEquals(hits, metrics.get("hits"));
+        assertEquals(misses, metrics.get("misses"));
+        assertEquals(evictions, metrics.get("evictions"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        RouteCache cache = new RouteCache(2);
+        RouteCache.Route a = route(1, 2);
+        RouteCache.Route b = route(3, 4);
+        RouteCache.Route c = route(5, 6);
+        cache.put(1, 2, ASTAR, a);
+        cache.put(3, 4, ASTAR, b);
+        assertSame(a, cache.get(1, 2, ASTAR)); // b is now the least recently used
+        cache.put(5, 6, ASTAR, c);
+        assertEquals(2, cache.size());
+        assertNull(cache.get(3, 4, ASTAR));
+        assertSame(a, cache.get(1, 2, ASTAR));
+        assertSame(c, cache.get(5, 6, ASTAR));
+        assertMetrics(cache, 2, 3, 1, 1);
+        assertEquals(2, cache.metrics().get("capacity"));
+
+        cache.put(1, 2, ASTAR, c); // replacing a route evicts nothing
+        assertSame(c, cache.get(1, 2, ASTAR));
+        assertMetrics(cache, 2, 4, 1, 1);
+
+        cache.clear();
+        assertNull(cache.get(1, 2, ASTAR));
+        assertMetrics(cache, 0, 4, 2, 1);
+    }
+
+    @Test
+    public void testKeys() {
+        RouteCache cache = new RouteCache(10);
+        RouteCache.Route a = route(1, 2);
+        cache.put(1, 2, ASTAR, a);
+        assertNull(cache.get(2, 1, ASTAR)); // routes are directed
+        assertNull(cache.get(1, 2, Router.Algorithm.CONTRACTION_HIERARCHY));
+        cache.put(1, 2, Router.Algorithm.CONTRACTION_HIERARCHY, route(1, 7, 2));
+        assertSame(a, cache.get(1, 2, ASTAR));
+        assertEquals(3, cache.get(1, 2, Router.Algorithm.CONTRACTION_HIERARCHY).path().size());
+        assertMetrics(cache, 2, 2, 2, 0);
+    }
+
+    @Test
+    public void testDisabled() {
+        RouteCache cache = new RouteCache(0);
+        cache.put(1, 2, ASTAR, route(1, 2));
+        assertNull(cache.get(1, 2, ASTAR));
+        assertMetrics(cache, 0, 0, 1, 0);
+    }
+
+    @Test
+    public void testRouter() {
+        RouteCache cache = g.routeCache();
+        cache.clear();
+        long before = (Long) cache.metrics().get("hits");
+        int s = graph.index(TestGraphs.gridId(8, 4, 4));
+        double[] dist = TestGraphs.dijkstra(graph, s, false);
+        int t = s; // the farthest vertex from s
+        for (int v = 0; v < graph.size(); v += 1) {
+            if (dist[v] != Double.POSITIVE_INFINITY && dist[v] > dist[t]) {
+                t = v;
+            }
+        }
+        double[] from = {graph.lon(s), graph.lat(s)};
+        double[] to = {graph.lon(t), graph.lat(t)};
+
+        RouteCache.Route first = Router.route(g, from[0], from[1], to[0], to[1], ASTAR, Router.defaultBudget());
+        assertEquals(1, cache.size());
+        assertSame(first, Router.route(g, from[0], from[1], to[0], to[1], ASTAR, Router.defaultBudget()));
+        assertEquals(before + 1, cache.metrics().get("hits"));
+        Router.route(g, from[0], from[1], to[0], to[1], Router.Algorithm.BIDIRECTIONAL_ASTAR,
+            Router.defaultBudget());
+        assertEquals(2, cache.size());
+
+        assertEquals(dist[t], first.weight(), 1e-9);
+        List<Router.NavigationDirection> expected = Router.routeDirections(g, new LinkedList<>(first.path()));
+        List<Router.NavigationDirection> directions = first.directions();
+        assertEquals(expected.size(), directions.size());
+        for (int i = 0; i < expected.size(); i += 1) {
+            assertEquals(expected.get(i).toString(), directions.get(i).toString());
+        }
+        assertSame(directions, first.directions());
+
+        Router.shortestPaths(g, new double[][] {{to[0], to[1], from[0], from[1]}}, ASTAR, true);
+        assertEquals("batches bypass the cache", 2, cache.size());
+        assertEquals(Arrays.asList(graph.id(s)), Router.route(g, from[0], from[1], from[0], from[1], ASTAR,
+            Router.defaultBudget()).path());
+        assertEquals(0, Router.route(g, from[0], from[1], from[0], from[1], ASTAR,
+            Router.defaultBudget()).directions().size());
+    }
+}
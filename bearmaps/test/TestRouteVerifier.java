@@ -0,0 +1,115 @@
+package bearmaps.test;
+
+import bearmaps.hw4.ShortestPathsSolver;
+import bearmaps.hw4.SolverOutcome;
+import bearmaps.proj2c.AugmentedStreetMapGraph;
+import bearmaps.proj2c.RouteVerifier;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/** Tests the arguments of RouteVerifier.setMode and how verified routes are counted. */
+public class TestRouteVerifier {
+    private static AugmentedStreetMapGraph g;
+    private static long start;
+    private static long dest;
+
+    @BeforeClass
+    public static void setUp() {
+        g = new AugmentedStreetMapGraph(TestGraphs.gridFile(6, 6, 41));
+        start = TestGraphs.ISLAND_A;
+        dest = TestGraphs.ISLAND_B;
+    }
+
+    @After
+    public void tearDown() {
+        RouteVerifier.setMode(RouteVerifier.Mode.OFF, 0);
+    }
+
+    @Test
+    public void testSetModeArguments() {
+        RouteVerifier.setMode(RouteVerifier.Mode.SAMPLE, 1);
+        assertEquals(RouteVerifier.Mode.SAMPLE, RouteVerifier.mode());
+        for (double rate : new double[] {-0.1, 1.5, Double.NaN}) {
+            try {
+                RouteVerifier.setMode(RouteVerifier.Mode.SAMPLE, rate);
+                fail("rate " + rate);
+            } catch (IllegalArgumentException e) {
+                assertEquals(RouteVerifier.Mode.SAMPLE, RouteVerifier.mode());
+            }
+        }
+        try {
+            RouteVerifier.setMode(null, 0.5);
+            fail("null mode");
+        } catch (IllegalArgumentException e) {
+            assertEquals(RouteVerifier.Mode.SAMPLE, RouteVerifier.mode());
+        }
+    }
+
+    @Test
+    public void testTimeoutsAreNotMismatches() throws InterruptedException {
+        RouteVerifier.setMode(RouteVerifier.Mode.SAMPLE, 1);
+        Map<String, Object> before = RouteVerifier.metrics();
+        RouteVerifier.sample(g, start, dest, new FixedSolver(SolverOutcome.TIMEOUT, 0));
+        double weight = g.estimatedDistanceToGoal(start, dest);
+        RouteVerifier.sample(g, start, dest, new FixedSolver(SolverOutcome.SOLVED, weight + 1));
+        Map<String, Object> after = awaitVerified((Long) before.get("verified") + 2);
+        assertEquals((Long) before.get("timeouts") + 1, after.get("timeouts"));
+        assertEquals((Long) before.get("mismatches") + 1, after.get("mismatches"));
+    }
+
+    /* polls the counters until VERIFIED routes have been verified. */
+    private static Map<String, Object> awaitVerified(long verified) throws InterruptedException {
+        for (int i = 0; i < 1000; i += 1) {
+            Map<String, Object> metrics = RouteVerifier.metrics();
+            if ((Long) metrics.get("verified") >= verified) {
+                return metrics;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("routes were not verified in time");
+    }
+
+    /* a solver that reports a fixed outcome and weight. */
+    private static class FixedSolver implements ShortestPathsSolver<Long> {
+        private final SolverOutcome outcome;
+        private final double weight;
+
+        FixedSolver(SolverOutcome outcome, double weight) {
+            this.outcome = outcome;
+            this.weight = weight;
+        }
+
+        @Override
+        public SolverOutcome outcome() {
+            return outcome;
+        }
+
+        @Override
+        public List<Long> solution() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public double solutionWeight() {
+            return weight;
+        }
+
+        @Override
+        public int numStatesExplored() {
+            return 0;
+        }
+
+        @Override
+        public double explorationTime() {
+            return 0;
+        }
+    }
+}
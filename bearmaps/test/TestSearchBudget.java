@@ -0,0 +1,120 @@
+package bearmaps.test;
+
+import bearmaps.hw4.BidirectionalAStarSolver;
+import bearmaps.hw4.IndexedAStarSolver;
+import bearmaps.hw4.SearchBudget;
+import bearmaps.hw4.SearchSpace;
+import bearmaps.hw4.ShortestPathsSolver;
+import bearmaps.hw4.SolverOutcome;
+import bearmaps.hw4.ch.ContractionHierarchy;
+import bearmaps.hw4.ch.ContractionHierarchyBuilder;
+import bearmaps.hw4.ch.ContractionHierarchySolver;
+import bearmaps.hw4.streetmap.CompactGraph;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests that the solvers give up with TIMEOUT once their SearchBudget runs out. */
+public class TestSearchBudget {
+    private static final int SIDE = 24;
+    /** Calls of exhausted() between two reads of the clock and the cancel flag. */
+    private static final int CHECK_INTERVAL = 64;
+    private static CompactGraph graph;
+    private static ContractionHierarchy ch;
+    private static long start;
+    private static long end;
+
+    @BeforeClass
+    public static void setUp() {
+        graph = TestGraphs.grid(SIDE, SIDE, 67);
+        ch = ContractionHierarchyBuilder.build(graph);
+        start = TestGraphs.gridId(SIDE, 0, 0);
+        end = TestGraphs.gridId(SIDE, SIDE - 1, SIDE - 1);
+    }
+
+    /* the three solvers between opposite corners of the grid, each within a budget made by BUDGET. */
+    private static ShortestPathsSolver<?>[] solve(Supplier<SearchBudget> budget) {
+        return new ShortestPathsSolver<?>[] {
+            new IndexedAStarSolver(graph, start, end, budget.get(), new SearchSpace()),
+            new BidirectionalAStarSolver(graph, start, end, budget.get(), new SearchSpace(), new SearchSpace()),
+            new ContractionHierarchySolver(ch, start, end, budget.get(), new SearchSpace(), new SearchSpace())
+        };
+    }
+
+    @Test
+    public void testUnlimited() {
+        double expected = TestGraphs.dijkstra(graph, graph.index(start), false)[graph.index(end)];
+        for (ShortestPathsSolver<?> solver : solve(() -> new SearchBudget(10, SearchBudget.UNLIMITED))) {
+            assertEquals(SolverOutcome.SOLVED, solver.outcome());
+            assertEquals(expected, solver.solutionWeight(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testStateLimit() {
+        SearchBudget budget = new SearchBudget(10, 5);
+        assertFalse(budget.exhausted(4));
+        assertTrue(budget.exhausted(5));
+
+        for (ShortestPathsSolver<?> solver : solve(() -> new SearchBudget(10, 8))) {
+            assertEquals(SolverOutcome.TIMEOUT, solver.outcome());
+            assertEquals(8, solver.numStatesExplored());
+            assertEquals(0, solver.solution().size());
+        }
+    }
+
+    @Test
+    public void testCancel() {
+        SearchBudget budget = new SearchBudget(10);
+        for (int i = 1; i < CHECK_INTERVAL; i += 1) {
+            assertFalse(budget.exhausted(i));
+        }
+        budget.cancel();
+        assertTrue(budget.isCancelled());
+        assertTrue(budget.exhausted(CHECK_INTERVAL));
+        assertTrue("stays exhausted", budget.exhausted(CHECK_INTERVAL + 1));
+
+        checkStopsAtFirstCheck(solve(() -> {
+            SearchBudget cancelled = new SearchBudget(10);
+            cancelled.cancel();
+            return cancelled;
+        }));
+    }
+
+    @Test
+    public void testTimeout() {
+        checkStopsAtFirstCheck(solve(() -> new SearchBudget(0)));
+    }
+
+    /* the A* searches need more than CHECK_INTERVAL states and must give up at the first
+    * check; the CH search may finish before it. */
+    private static void checkStopsAtFirstCheck(ShortestPathsSolver<?>[] solvers) {
+        for (ShortestPathsSolver<?> solver : solvers) {
+            if (solver.outcome() == SolverOutcome.TIMEOUT) {
+                assertTrue(solver.numStatesExplored() <= CHECK_INTERVAL);
+            } else {
+                assertTrue(solver instanceof ContractionHierarchySolver);
+                assertTrue(solver.numStatesExplored() < CHECK_INTERVAL);
+            }
+        }
+        assertEquals(SolverOutcome.TIMEOUT, solvers[0].outcome());
+        assertEquals(SolverOutcome.TIMEOUT, solvers[1].outcome());
+    }
+
+    @Test
+    public void testInterrupt() {
+        Thread.currentThread().interrupt();
+        try {
+            ShortestPathsSolver<?> solver = new IndexedAStarSolver(graph, start, end, new SearchBudget(10),
+                new SearchSpace());
+            assertEquals(SolverOutcome.TIMEOUT, solver.outcome());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
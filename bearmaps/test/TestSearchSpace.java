@@ -0,0 +1,91 @@
+package bearmaps.test;
+
+import bearmaps.hw4.SearchSpace;
+import bearmaps.proj2ab.IndexedHeapMinPQ;
+import bearmaps.proj2ab.PairingHeapMinPQ;
+import bearmaps.proj2ab.RadixHeapMinPQ;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the generation stamps and the queues of SearchSpace. */
+public class TestSearchSpace {
+
+    private static List<SearchSpace> spaces() {
+        return Arrays.asList(new SearchSpace(), new SearchSpace(0, new IndexedHeapMinPQ()),
+            new SearchSpace(0, new RadixHeapMinPQ()), new SearchSpace(0, new PairingHeapMinPQ()));
+    }
+
+    @Test
+    public void testResetForgetsEarlierQuery() {
+        for (SearchSpace space : spaces()) {
+            space.reset(10);
+            space.setDistTo(3, 1.5, 7);
+            space.push(3, 1.5);
+            space.settle(3);
+            assertTrue(space.isReached(3));
+            assertEquals(1.5, space.distTo(3), 0);
+            assertEquals(7, space.edgeTo(3));
+            assertEquals(1, space.settledCount());
+            assertEquals(3, space.settledVertex(0));
+
+            space.reset(20); // grows the arrays
+            assertFalse(space.isReached(3));
+            assertFalse(space.isSettled(3));
+            assertEquals(Double.POSITIVE_INFINITY, space.distTo(3), 0);
+            assertEquals(-1, space.edgeTo(3));
+            assertEquals(0, space.settledCount());
+            assertTrue(space.isHeapEmpty());
+            space.setDistTo(19, 2.0, -1);
+            assertTrue(space.isReached(19));
+
+            space.reset(5); // keeps the larger arrays
+            assertFalse(space.isReached(19));
+            assertFalse(space.isReached(3));
+        }
+    }
+
+    @Test
+    public void testPopsInPriorityOrder() {
+        Random random = new Random(3);
+        for (SearchSpace space : spaces()) {
+            for (int round = 0; round < 3; round += 1) {
+                space.reset(500);
+                double[] best = new double[500];
+                Arrays.fill(best, Double.POSITIVE_INFINITY);
+                for (int i = 0; i < 2000; i += 1) {
+                    int v = random.nextInt(500);
+                    double priority = random.nextInt(1000) / 10.0;
+                    space.push(v, priority);
+                    best[v] = Math.min(best[v], priority);
+                }
+                /* the lazy heap returns stale copies too; skip them as the searches do */
+                List<Double> popped = new ArrayList<>();
+                while (!space.isHeapEmpty()) {
+                    double priority = space.peekPriority();
+                    int v = space.pop();
+                    if (!space.isSettled(v)) {
+                        space.settle(v);
+                        assertEquals(best[v], priority, 0);
+                        popped.add(priority);
+                    }
+                }
+                for (int i = 1; i < popped.size(); i += 1) {
+                    assertTrue(popped.get(i - 1) <= popped.get(i));
+                }
+                int reached = 0;
+                for (double b : best) {
+                    reached += b < Double.POSITIVE_INFINITY ? 1 : 0;
+                }
+                assertEquals(reached, space.settledCount());
+            }
+        }
+    }
+}